@@ -0,0 +1,241 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.appengine.api.memcache.Expiration;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.appengine.api.memcache.MemcacheService.SetPolicy;
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A read-through cache of comment pages, so that reading comments doesn't query the datastore
+ * every time. Pages are kept in this instance's memory and, optionally, in a second tier that all
+ * instances share. Anything that changes the comments must call invalidate().
+ *
+ * Invalidating bumps a generation number instead of deleting pages one by one. Every cached page
+ * is tagged with the generation it was loaded in, and pages from older generations are ignored.
+ * When a shared tier is used, the generation lives there too, so a write on one instance is seen
+ * by all of them.
+ *
+ * The shared tier is picked with the "sps.commentCache" system property: "memcache" for App
+ * Engine memcache (set in appengine-web.xml), "local" for an in-memory stand-in with the same
+ * behaviour (e.g. for the dev server), or unset for no shared tier.
+ *
+ * Pages kept in this instance's memory expire after a few seconds either way. Without a shared
+ * tier an invalidation can't reach other instances at all, and with memcache a generation bump can
+ * fail or its key can be evicted, so the expiry bounds how long a missed invalidation is served.
+ */
+public final class CommentCache {
+  private static final String TIER_PROPERTY = "sps.commentCache";
+
+  // How many pages this instance keeps in memory.
+  private static final int LOCAL_CAPACITY = 256;
+
+  // How long this instance keeps a page, in case it misses an invalidation.
+  private static final long LOCAL_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private static final CommentCache INSTANCE =
+      new CommentCache(createTier(System.getProperty(TIER_PROPERTY)));
+
+  private final Tier shared;
+  private final LongSupplier nanoClock;
+  private final AtomicLong localGeneration = new AtomicLong();
+
+  // In access order, so the eldest page is the least recently used. Guarded by itself.
+  private final Map<String, CachedPage> local =
+      new LinkedHashMap<String, CachedPage>(16, 0.75f, /*accessOrder=*/true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+          return size() > LOCAL_CAPACITY;
+        }
+      };
+
+  /**
+   * @param shared The tier shared by all instances, or null to only cache in this instance.
+   */
+  public CommentCache(Tier shared) {
+    this(shared, System::nanoTime);
+  }
+
+  /**
+   * @param shared The tier shared by all instances, or null to only cache in this instance.
+   * @param nanoClock Returns the current time in nanoseconds, for expiring pages.
+   */
+  CommentCache(Tier shared, LongSupplier nanoClock) {
+    this.shared = shared;
+    this.nanoClock = nanoClock;
+  }
+
+  /** Returns the cache used by the servlets. */
+  public static CommentCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the page stored under key, calling load to get it from the datastore if no tier has
+   * it for the current generation.
+   */
+  public CommentPage get(String key, Supplier<CommentPage> load) {
+    // Read the generation first, so that a page loaded during an invalidation is tagged as old.
+    long generation = shared == null ? localGeneration.get() : shared.getGeneration();
+
+    long now = nanoClock.getAsLong();
+    synchronized (local) {
+      CachedPage cached = local.get(key);
+      if (cached != null && cached.generation == generation
+          && now - cached.loaded < LOCAL_TTL_NANOS) {
+        return cached.page;
+      }
+    }
+
+    String sharedKey = generation + ":" + key;
+    CommentPage page = shared == null ? null : shared.get(sharedKey);
+    if (page == null) {
+      page = load.get();
+      if (shared != null) {
+        shared.put(sharedKey, page);
+      }
+    }
+    synchronized (local) {
+      local.put(key, new CachedPage(generation, now, page));
+    }
+    return page;
+  }
+
+  /** Drops every cached page, in this instance and in the shared tier. */
+  public void invalidate() {
+    localGeneration.incrementAndGet();
+    if (shared != null) {
+      shared.bumpGeneration();
+    }
+    synchronized (local) {
+      local.clear();
+    }
+  }
+
+  private static Tier createTier(String name) {
+    if (name == null || name.isEmpty()) {
+      return null;
+    }
+    switch (name) {
+      case "memcache":
+        return new MemcacheTier();
+      case "local":
+        return new LocalTier();
+      default:
+        throw new IllegalArgumentException("Unknown comment cache tier: " + name);
+    }
+  }
+
+  private static final class CachedPage {
+    private final long generation;
+    private final long loaded;
+    private final CommentPage page;
+
+    private CachedPage(long generation, long loaded, CommentPage page) {
+      this.generation = generation;
+      this.loaded = loaded;
+      this.page = page;
+    }
+  }
+
+  /** A cache of pages shared by all instances, along with the current generation. */
+  public interface Tier {
+    long getGeneration();
+
+    void bumpGeneration();
+
+    /** Returns the page stored under key, or null if there is none. */
+    CommentPage get(String key);
+
+    void put(String key, CommentPage page);
+  }
+
+  /**
+   * A tier in App Engine memcache. Pages are left to expire, since old generations never match.
+   */
+  public static final class MemcacheTier implements Tier {
+    private static final String GENERATION_KEY = "generation";
+    private static final Expiration EXPIRATION = Expiration.byDeltaSeconds(10 * 60);
+
+    private final MemcacheService memcache = MemcacheServiceFactory.getMemcacheService("comments");
+
+    @Override
+    public long getGeneration() {
+      Object generation = memcache.get(GENERATION_KEY);
+      if (generation == null) {
+        // Start from the clock rather than 0 so that an evicted generation doesn't go back to one
+        // that old pages might still be stored under.
+        memcache.put(GENERATION_KEY, System.currentTimeMillis(), null,
+            SetPolicy.ADD_ONLY_IF_NOT_PRESENT);
+        generation = memcache.get(GENERATION_KEY);
+      }
+      return generation == null ? 0 : (Long) generation;
+    }
+
+    @Override
+    public void bumpGeneration() {
+      memcache.increment(GENERATION_KEY, 1, System.currentTimeMillis());
+    }
+
+    @Override
+    public CommentPage get(String key) {
+      return (CommentPage) memcache.get(key);
+    }
+
+    @Override
+    public void put(String key, CommentPage page) {
+      memcache.put(key, page, EXPIRATION);
+    }
+  }
+
+  /** A stand-in for memcache that keeps everything in this instance's memory. */
+  public static final class LocalTier implements Tier {
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, CommentPage> pages = new ConcurrentHashMap<>();
+
+    @Override
+    public long getGeneration() {
+      return generation.get();
+    }
+
+    @Override
+    public void bumpGeneration() {
+      generation.incrementAndGet();
+      // Nothing expires here, so drop the old generation's pages instead.
+      pages.clear();
+    }
+
+    @Override
+    public CommentPage get(String key) {
+      return pages.get(key);
+    }
+
+    @Override
+    public void put(String key, CommentPage page) {
+      // Unlike memcache, nothing is evicted, so stop adding pages once there are plenty.
+      if (pages.size() < LOCAL_CAPACITY) {
+        pages.put(key, page);
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.io.Serializable;
+
+/** One page of comments, already converted to JSON, and where the next page starts. */
+public final class CommentPage implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String commentsJson;
+  private final String cursor;
+
+  /**
+   * @param commentsJson The comments on this page as a JSON array.
+   * @param cursor The web-safe cursor of the next page, or null if this is the last page.
+   */
+  public CommentPage(String commentsJson, String cursor) {
+    this.commentsJson = commentsJson;
+    this.cursor = cursor;
+  }
+
+  public String getCommentsJson() {
+    return commentsJson;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
@@ -21,9 +22,12 @@ import com.google.appengine.api.datastore.FetchOptions;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultList;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.sps.data.Comment;
+import com.google.sps.data.CommentCache;
+import com.google.sps.data.CommentPage;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -39,13 +43,19 @@ import org.json.simple.JSONObject;
 /** Servlet that returns some example content.*/
 @WebServlet("/data")
 public class DataServlet extends HttpServlet {
+  // "all" pages through every comment, this many at a time.
+  private static final int ALL_PAGE_SIZE = 20;
+
+  // Asking for more comments per page than this is an error.
+  private static final int MAX_PAGE_SIZE = 100;
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     UserService userService = UserServiceFactory.getUserService();
     JSONObject commentsJson = new JSONObject();
     if (userService.isUserLoggedIn()) {
-      commentsJson = getLoggedInComments(request.getParameter("numComments"), userService);
+      commentsJson = getLoggedInComments(
+          request.getParameter("numComments"), request.getParameter("cursor"), userService);
     } else {
       commentsJson = getLoggedOutComments(userService);
     }
@@ -57,29 +67,71 @@ public class DataServlet extends HttpServlet {
   }
 
   public JSONObject getLoggedInComments(String strNumComments, UserService userService) {
+    return getLoggedInComments(strNumComments, null, userService);
+  }
+
+  /**
+   * Returns one page of comments, newest first. The page ends with a "cursor" that can be passed
+   * back to get the next page; it is left out once there are no more comments. Each page starts
+   * where the last one ended, so it costs the same however many comments there are.
+   *
+   * @param strNumComments The number of comments per page, from 1 to MAX_PAGE_SIZE, or "all" for
+   *     pages of ALL_PAGE_SIZE.
+   * @param webSafeCursor The cursor from the previous page, or null for the first page.
+   */
+  public JSONObject getLoggedInComments(
+      String strNumComments, String webSafeCursor, UserService userService) {
     int numComments;
-    FetchOptions commentLimit;
     try { 
       if (strNumComments.equals("all")) { 
-        commentLimit = FetchOptions.Builder.withDefaults();
+        numComments = ALL_PAGE_SIZE;
       } else { 
         numComments = Integer.parseInt(strNumComments);
         if (numComments <= 0) {
           throw new Exception("Invalid number of comments.");
         }
-        commentLimit = FetchOptions.Builder.withLimit(numComments);
       }
     } catch (Exception e) { 
-      JSONObject errMessage = new JSONObject();
-      errMessage.put("message", "Invalid number of comments");
-      JSONObject err = new JSONObject();
-      err.put("error", errMessage);
-      return err;
+      return error("Invalid number of comments");
+    }
+    if (numComments > MAX_PAGE_SIZE) {
+      return error("At most " + MAX_PAGE_SIZE + " comments can be shown per page");
     }
+    String cursorKey = webSafeCursor == null ? "" : webSafeCursor;
+    Cursor startCursor = null;
+    if (!cursorKey.isEmpty()) {
+      try {
+        startCursor = Cursor.fromWebSafeString(cursorKey);
+      } catch (IllegalArgumentException e) {
+        return error("Invalid cursor");
+      }
+    }
+
+    // Pages are the same for every user, so they are cached and only the user's details are added.
+    int pageSize = numComments;
+    Cursor pageStart = startCursor;
+    CommentPage page = CommentCache.getInstance().get(
+        pageSize + ":" + cursorKey, () -> loadPage(pageSize, pageStart));
+
+    JSONObject commentsJson = new JSONObject();
+    commentsJson.put("comments", page.getCommentsJson());
+    if (page.getCursor() != null) {
+      commentsJson.put("cursor", page.getCursor());
+    }
+    commentsJson.put("logged_in", true);
+    commentsJson.put("user", userService.getCurrentUser().getEmail());
+    commentsJson.put("url", userService.createLogoutURL("/#comments"));
+    return commentsJson;
+  }
 
+  private CommentPage loadPage(int numComments, Cursor startCursor) {
+    FetchOptions commentLimit = FetchOptions.Builder.withLimit(numComments);
+    if (startCursor != null) {
+      commentLimit.startCursor(startCursor);
+    }
     Query query = new Query("Comment").addSort("timestamp", SortDirection.DESCENDING);
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    List<Entity> results = datastore.prepare(query).asList(commentLimit);
+    QueryResultList<Entity> results = datastore.prepare(query).asQueryResultList(commentLimit);
 
     ArrayList<Comment> comments = new ArrayList<>();
     for (Entity entity : results) {
@@ -88,12 +140,17 @@ public class DataServlet extends HttpServlet {
       String user = (String) entity.getProperty("user");
       comments.add(new Comment(id, text, user));
     }
-    JSONObject commentsJson = new JSONObject();
-    commentsJson.put("comments", convertToJson(comments));
-    commentsJson.put("logged_in", true);
-    commentsJson.put("user", userService.getCurrentUser().getEmail());
-    commentsJson.put("url", userService.createLogoutURL("/#comments"));
-    return commentsJson;
+    // A short page means the last comment was reached.
+    String cursor = results.size() == numComments ? results.getCursor().toWebSafeString() : null;
+    return new CommentPage(convertToJson(comments), cursor);
+  }
+
+  private JSONObject error(String message) {
+    JSONObject errMessage = new JSONObject();
+    errMessage.put("message", message);
+    JSONObject err = new JSONObject();
+    err.put("error", errMessage);
+    return err;
   }
 
   public JSONObject getLoggedOutComments(UserService userService) { 
@@ -122,6 +179,7 @@ public class DataServlet extends HttpServlet {
 
         DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
         datastore.put(commentsEntity);
+        CommentCache.getInstance().invalidate();
       }
     }
     response.sendRedirect("/#comments");
@@ -70,18 +70,27 @@ function switchIcon(icon) {
 /**
  * Get number of comments from data servlet
  * @param {string} numComments A string equivalent of the number of comments in datastore.
+ * @param {string=} cursor Where the previous page ended. Without it, the first page replaces the
+ *     comments shown; with it, the next page is added after them.
  */
-async function getNumComments(numComments) {
-  const response = await fetch(`/data?numComments=${numComments}`);
+async function getNumComments(numComments, cursor) {
+  const params = new URLSearchParams({numComments: numComments});
+  if (cursor) {
+    params.append('cursor', cursor);
+  }
+  const response = await fetch(`/data?${params}`);
   const messages = await response.json();
   const messageContainer = document.getElementById('message-container');
-  messageContainer.innerHTML = '';
+  if (!cursor) {
+    messageContainer.innerHTML = '';
+  }
   document.getElementById('login').setAttribute('href', messages.url);
   if (JSON.parse(messages.logged_in)) { 
     document.getElementById('login').innerHTML = 'Logout';
     for (const message of JSON.parse(messages.comments)) { 
       messageContainer.appendChild(createListElement(message, /*deletable=*/messages.user == message.userEmail));
     }
+    showLoadMore(numComments, messages.cursor);
   } else { 
     document.getElementById('comments-body').innerHTML = '';
     const loginLink = document.createElement('a');
@@ -92,6 +101,17 @@ async function getNumComments(numComments) {
   }
 }
 
+/**
+ * Shows the button that loads the next page of comments, or hides it if there are no more.
+ * @param {string} numComments The number of comments per page.
+ * @param {string=} cursor Where the page just shown ended.
+ */
+function showLoadMore(numComments, cursor) {
+  const loadMore = document.getElementById('load-more');
+  loadMore.hidden = !cursor;
+  loadMore.onclick = () => getNumComments(numComments, cursor);
+}
+
 /**
  * Display text from data Servlet
  */
@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CommentCacheTest {
+  private static final String KEY = "10:";
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final Supplier<CommentPage> load = () ->
+      new CommentPage("[" + loads.incrementAndGet() + "]", null);
+
+  @Test
+  public void pagesAreLoadedOnce() {
+    CommentCache cache = new CommentCache(new CommentCache.LocalTier());
+
+    cache.get(KEY, load);
+    CommentPage page = cache.get(KEY, load);
+
+    Assert.assertEquals("[1]", page.getCommentsJson());
+    Assert.assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void invalidateReachesOtherInstances() {
+    CommentCache.Tier shared = new CommentCache.LocalTier();
+    CommentCache writer = new CommentCache(shared);
+    CommentCache reader = new CommentCache(shared);
+    reader.get(KEY, load);
+    Assert.assertEquals("[1]", writer.get(KEY, load).getCommentsJson());
+
+    writer.invalidate();
+
+    Assert.assertEquals("[2]", reader.get(KEY, load).getCommentsJson());
+    Assert.assertEquals("[2]", writer.get(KEY, load).getCommentsJson());
+    Assert.assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void unsharedPagesExpire() {
+    AtomicLong now = new AtomicLong();
+    CommentCache cache = new CommentCache(null, now::get);
+    cache.get(KEY, load);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    Assert.assertEquals("[1]", cache.get(KEY, load).getCommentsJson());
+
+    now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+    Assert.assertEquals("[2]", cache.get(KEY, load).getCommentsJson());
+  }
+
+  @Test
+  public void missedInvalidationStillExpires() {
+    // A shared tier whose generation bump is lost and whose pages have been evicted.
+    CommentCache.Tier lossy = new CommentCache.Tier() {
+      @Override
+      public long getGeneration() {
+        return 7;
+      }
+
+      @Override
+      public void bumpGeneration() {}
+
+      @Override
+      public CommentPage get(String key) {
+        return null;
+      }
+
+      @Override
+      public void put(String key, CommentPage page) {}
+    };
+    AtomicLong now = new AtomicLong();
+    CommentCache reader = new CommentCache(lossy, now::get);
+    CommentCache writer = new CommentCache(lossy, now::get);
+    reader.get(KEY, load);
+
+    writer.invalidate();
+    Assert.assertEquals("[1]", reader.get(KEY, load).getCommentsJson());
+
+    now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+    Assert.assertEquals("[2]", reader.get(KEY, load).getCommentsJson());
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic calendars for benchmarks. Events start on a quarter hour somewhere within
+ * the horizon and last between 15 minutes and 2 hours. Attendees are drawn uniformly from a fixed
+ * population, so the number of events per person is roughly
+ * {@code events * attendeesPerEvent / people}. The same seed always generates the same calendar.
+ */
+public final class CalendarGenerator {
+  private static final int SLOT_MINUTES = 15;
+  private static final int MAX_EVENT_SLOTS = 8;
+
+  private final Random random;
+  private final int people;
+  private final TimeRange horizon;
+
+  /**
+   * Creates a generator.
+   *
+   * @param seed The seed for all random choices.
+   * @param people How many different people can attend events.
+   * @param horizon The span of time that events are spread over.
+   */
+  public CalendarGenerator(long seed, int people, TimeRange horizon) {
+    if (people <= 0) {
+      throw new IllegalArgumentException("people must be positive");
+    }
+
+    this.random = new Random(seed);
+    this.people = people;
+    this.horizon = horizon;
+  }
+
+  /**
+   * Returns the name of the {@code index}th person in the population.
+   */
+  public static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Generates {@code count} events, each with {@code attendeesPerEvent} different attendees (or
+   * everyone, if the population is smaller than that).
+   */
+  public List<Event> events(int count, int attendeesPerEvent) {
+    List<Event> events = new ArrayList<>(count);
+    int slots = Math.max(horizon.duration() / SLOT_MINUTES, 1);
+    for (int i = 0; i < count; i++) {
+      int start = horizon.start() + random.nextInt(slots) * SLOT_MINUTES;
+      int duration = (1 + random.nextInt(MAX_EVENT_SLOTS)) * SLOT_MINUTES;
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          people(attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Generates a request for {@code size} different people, of which about
+   * {@code optionalRatio * size} are optional, for a meeting anywhere in the horizon.
+   */
+  public MeetingRequest request(int size, double optionalRatio, long duration) {
+    List<String> attendees = new ArrayList<>(people(size));
+    int optional = (int) Math.round(attendees.size() * optionalRatio);
+    MeetingRequest request = new MeetingRequest(
+        attendees.subList(0, attendees.size() - optional), duration, horizon);
+    for (String attendee : attendees.subList(attendees.size() - optional, attendees.size())) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  private Set<String> people(int count) {
+    count = Math.min(count, people);
+    Set<String> chosen = new LinkedHashSet<>();
+    while (chosen.size() < count) {
+      chosen.add(person(random.nextInt(people)));
+    }
+    return chosen;
+  }
+}
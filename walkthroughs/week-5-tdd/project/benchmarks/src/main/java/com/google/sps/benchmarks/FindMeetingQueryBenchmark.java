@@ -0,0 +1,143 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeIndex;
+import com.google.sps.BitmapFreeTimeEngine;
+import com.google.sps.Event;
+import com.google.sps.EventIntervalTree;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.RangeBuffer;
+import com.google.sps.SortedFreeTimeEngine;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@code FindMeetingQuery} over synthetic calendars. Each benchmark
+ * cycles through a fixed set of pre-generated requests so that no single request's shape
+ * dominates. Run with {@code -prof gc} to also report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  private static final int REQUESTS = 64;
+
+  /** How many events are in the calendar. */
+  @Param({"1000", "100000"})
+  public int events;
+
+  /** How many different people attend events. */
+  @Param({"500"})
+  public int people;
+
+  /** How many people attend each event. */
+  @Param({"1", "4"})
+  public int attendeesPerEvent;
+
+  /** How many people each request asks for, mandatory and optional combined. */
+  @Param({"3", "30", "300"})
+  public int requestSize;
+
+  /** The fraction of each request's attendees that are optional. */
+  @Param({"0.0", "0.5"})
+  public double optionalRatio;
+
+  /** How many days the calendar and the requests span. */
+  @Param({"1"})
+  public int days;
+
+  /** The free time engine: "sorted" or "bitmap". */
+  @Param({"sorted", "bitmap"})
+  public String engine;
+
+  private List<Event> calendar;
+  private AttendeeIndex index;
+  private EventIntervalTree tree;
+  private MeetingRequest[] requests;
+  private FindMeetingQuery query;
+  private final RangeBuffer buffer = new RangeBuffer();
+  private int next;
+
+  @Setup
+  public void setUp() {
+    TimeRange horizon = TimeRange.fromStartDuration(0, days * TimeRange.MINUTES_PER_DAY);
+    CalendarGenerator generator = new CalendarGenerator(/*seed=*/42, people, horizon);
+    calendar = generator.events(events, attendeesPerEvent);
+    index = new AttendeeIndex(calendar);
+    tree = new EventIntervalTree(calendar);
+
+    requests = new MeetingRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      requests[i] = generator.request(requestSize, optionalRatio, /*duration=*/30 + 30 * (i % 2));
+    }
+
+    if ("bitmap".equals(engine)) {
+      query = new FindMeetingQuery(new BitmapFreeTimeEngine());
+    } else if ("sorted".equals(engine)) {
+      query = new FindMeetingQuery(new SortedFreeTimeEngine());
+    } else {
+      throw new IllegalArgumentException("Unknown engine: " + engine);
+    }
+  }
+
+  private MeetingRequest nextRequest() {
+    next = (next + 1) % REQUESTS;
+    return requests[next];
+  }
+
+  @Benchmark
+  public Collection<TimeRange> scanAllEvents() {
+    return query.query(calendar, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> attendeeIndex() {
+    return query.query(index, nextRequest());
+  }
+
+  @Benchmark
+  public RangeBuffer attendeeIndexIntoBuffer() {
+    query.queryInto(index, nextRequest(), buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public Collection<TimeRange> intervalTree() {
+    return query.query(tree, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> maximizeOptional() {
+    return query.queryMaximizingOptional(index, nextRequest());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@code TimeRange} operations that the scheduler leans on: pairwise checks,
+ * creating ranges and sorting them by start time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeBenchmark {
+  /** How many ranges each benchmark works through. */
+  @Param({"1000"})
+  public int ranges;
+
+  private TimeRange[] randomRanges;
+  private int[] starts;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    randomRanges = new TimeRange[ranges];
+    starts = new int[ranges];
+    for (int i = 0; i < ranges; i++) {
+      starts[i] = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      randomRanges[i] = TimeRange.fromStartDuration(starts[i], 15 + random.nextInt(120));
+    }
+  }
+
+  @Benchmark
+  public void overlaps(Blackhole blackhole) {
+    for (int i = 1; i < randomRanges.length; i++) {
+      blackhole.consume(randomRanges[i - 1].overlaps(randomRanges[i]));
+    }
+  }
+
+  @Benchmark
+  public void contains(Blackhole blackhole) {
+    for (int i = 1; i < randomRanges.length; i++) {
+      blackhole.consume(randomRanges[i - 1].contains(randomRanges[i]));
+    }
+  }
+
+  @Benchmark
+  public void fromStartEnd(Blackhole blackhole) {
+    for (int i = 0; i < starts.length; i++) {
+      blackhole.consume(TimeRange.fromStartEnd(starts[i], starts[i] + 30, false));
+    }
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByStart() {
+    List<TimeRange> sorted = new ArrayList<>(ranges);
+    Collections.addAll(sorted, randomRanges);
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+    return sorted;
+  }
+}
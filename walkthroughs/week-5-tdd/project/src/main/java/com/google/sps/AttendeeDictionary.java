@@ -0,0 +1,242 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps attendee names to small integer IDs, so that checking whether two groups of people share
+ * anyone is a merge of two sorted {@code int} arrays instead of hashing and comparing strings.
+ * IDs are handed out in the order names are first seen and are never reused. Dictionaries are
+ * safe to use from several threads.
+ *
+ * <p>A name interned by {@link #intern} keeps its ID only while an {@link Interned} that contains
+ * it is reachable. Events hold on to theirs, so names that no live event mentions, such as those of
+ * deleted events, are dropped once the events are garbage collected. Because IDs aren't reused, an
+ * array of IDs that outlives its names can't match anyone else's. Looking up names that already
+ * have an ID takes no lock.
+ */
+public final class AttendeeDictionary {
+  private static final AttendeeDictionary DEFAULT = new AttendeeDictionary();
+
+  private final ConcurrentHashMap<String, NameReference> entries = new ConcurrentHashMap<>();
+
+  // The name with each ID that hasn't been dropped.
+  private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+  // The handles of the names passed to getId, which are never dropped.
+  private final Set<Handle> pinned = ConcurrentHashMap.newKeySet();
+
+  private final ReferenceQueue<Handle> collected = new ReferenceQueue<>();
+
+  // Guarded by this.
+  private int nextId;
+
+  /**
+   * Returns the dictionary that events and meeting requests use for their attendee IDs.
+   */
+  public static AttendeeDictionary getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns the ID for {@code name}, giving it the next free ID if it doesn't have one yet. The
+   * name keeps this ID for as long as the dictionary exists.
+   */
+  public int getId(String name) {
+    Handle handle = handle(name);
+    pinned.add(handle);
+    return handle.id;
+  }
+
+  /**
+   * Returns the name with the ID {@code id}.
+   *
+   * @throws IllegalArgumentException If no name has that ID, for example because it was dropped.
+   */
+  public String getName(int id) {
+    String name = names.get(id);
+    if (name == null) {
+      throw new IllegalArgumentException("Unknown attendee ID: " + id);
+    }
+    return name;
+  }
+
+  /**
+   * Returns the number of names that currently have an ID.
+   */
+  public int size() {
+    synchronized (this) {
+      dropCollected();
+    }
+    return names.size();
+  }
+
+  /**
+   * Returns the sorted IDs of {@code attendees}, giving IDs to any names that don't have one yet.
+   * The names keep their IDs at least as long as the returned {@code Interned} is reachable.
+   */
+  public Interned intern(Collection<String> attendees) {
+    Handle[] handles = new Handle[attendees.size()];
+    int[] attendeeIds = new int[handles.length];
+    int length = 0;
+    for (String attendee : attendees) {
+      Handle handle = handle(attendee);
+      handles[length] = handle;
+      attendeeIds[length++] = handle.id;
+    }
+    return new Interned(sortedDistinct(attendeeIds, length), handles);
+  }
+
+  /**
+   * Returns the sorted IDs of the names in {@code attendees} that already have one. Names without
+   * an ID aren't in any event, so leaving them out doesn't change which events a group shares,
+   * and it keeps lookups from growing the dictionary.
+   */
+  public int[] getKnownIds(Collection<String> attendees) {
+    int[] attendeeIds = new int[attendees.size()];
+    int length = 0;
+    for (String attendee : attendees) {
+      NameReference reference = entries.get(attendee);
+      if (reference != null && reference.get() != null) {
+        attendeeIds[length++] = reference.id;
+      }
+    }
+    return sortedDistinct(attendeeIds, length);
+  }
+
+  /**
+   * Checks if the sorted ID arrays {@code a} and {@code b} have any ID in common.
+   */
+  public static boolean intersects(int[] a, int[] b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] == b[j]) {
+        return true;
+      } else if (a[i] < b[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops the ID of {@code name} as if everything holding it had been garbage collected. Only for
+   * tests, which can't rely on the collector.
+   */
+  void release(String name) {
+    NameReference reference = entries.get(name);
+    if (reference != null) {
+      reference.clear();
+      reference.enqueue();
+    }
+  }
+
+  /** Returns the handle for the ID of {@code name}, giving it the next ID if it has none. */
+  private Handle handle(String name) {
+    NameReference reference = entries.get(name);
+    Handle handle = reference == null ? null : reference.get();
+    if (handle != null) {
+      return handle;
+    }
+    synchronized (this) {
+      dropCollected();
+      reference = entries.get(name);
+      handle = reference == null ? null : reference.get();
+      if (handle == null) {
+        if (nextId == Integer.MAX_VALUE) {
+          throw new IllegalStateException("Out of attendee IDs");
+        }
+        handle = new Handle(nextId++);
+        names.put(handle.id, name);
+        entries.put(name, new NameReference(name, handle, collected));
+      }
+      return handle;
+    }
+  }
+
+  /**
+   * Forgets the names whose handles have been garbage collected. Callers must hold the lock.
+   */
+  private void dropCollected() {
+    NameReference reference;
+    while ((reference = (NameReference) collected.poll()) != null) {
+      names.remove(reference.id);
+      entries.remove(reference.name, reference);
+    }
+  }
+
+  private static int[] sortedDistinct(int[] values, int length) {
+    Arrays.sort(values, 0, length);
+    int distinct = 0;
+    for (int i = 0; i < length; i++) {
+      if (distinct == 0 || values[i] != values[distinct - 1]) {
+        values[distinct++] = values[i];
+      }
+    }
+    return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+  }
+
+  /**
+   * The sorted IDs of a group of attendees. Holding on to it keeps the attendees' names in the
+   * dictionary.
+   */
+  public static final class Interned {
+    private final int[] ids;
+
+    // Only here to keep the names' handles reachable.
+    @SuppressWarnings("unused")
+    private final Handle[] handles;
+
+    private Interned(int[] ids, Handle[] handles) {
+      this.ids = ids;
+      this.handles = handles;
+    }
+
+    /** Returns the sorted IDs. Callers must not change the array. */
+    public int[] getIds() {
+      return ids;
+    }
+  }
+
+  /** Keeps the ID of one name alive. Every {@code Interned} with the name refers to it. */
+  private static final class Handle {
+    private final int id;
+
+    private Handle(int id) {
+      this.id = id;
+    }
+  }
+
+  /** The dictionary's weak reference to the handle of one name. */
+  private static final class NameReference extends WeakReference<Handle> {
+    private final String name;
+    private final int id;
+
+    private NameReference(String name, Handle handle, ReferenceQueue<Handle> queue) {
+      super(handle, queue);
+      this.name = name;
+      this.id = handle.id;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index from each attendee to the events they attend (in an {@code EventIntervalTree}) and their
+ * merged {@code BusyTimeline}. The index is built once from a collection of events so that a query
+ * only has to merge the timelines of the people it asks about, instead of scanning and sorting
+ * every event. Recurring events are kept out of the precomputed timelines and expanded only within
+ * the window a query asks about. Indexes are considered read-only; adding or removing an event
+ * returns a new index that shares everything except the entries of that event's attendees.
+ */
+public final class AttendeeIndex {
+  private final Map<String, Entry> entries;
+
+  /**
+   * Creates a new index over {@code events}.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public AttendeeIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    Map<String, List<Event>> eventsByAttendee = new HashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        List<Event> attendeeEvents = eventsByAttendee.get(attendee);
+        if (attendeeEvents == null) {
+          attendeeEvents = new ArrayList<>();
+          eventsByAttendee.put(attendee, attendeeEvents);
+        }
+        attendeeEvents.add(event);
+      }
+    }
+
+    this.entries = new HashMap<>();
+    for (Map.Entry<String, List<Event>> attendeeEvents : eventsByAttendee.entrySet()) {
+      entries.put(
+          attendeeEvents.getKey(), Entry.of(new EventIntervalTree(attendeeEvents.getValue())));
+    }
+  }
+
+  private AttendeeIndex(Map<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Returns a read-only list of the events that {@code attendee} attends, ordered by start time. If
+   * the attendee is not in any event, the list is empty.
+   */
+  public List<Event> getEvents(String attendee) {
+    Entry entry = entries.get(attendee);
+    return entry == null ? Collections.<Event>emptyList() : entry.events.getEvents();
+  }
+
+  /**
+   * Returns the events that {@code attendee} attends which overlap {@code range}, ordered by start
+   * time.
+   */
+  public List<Event> getEvents(String attendee, TimeRange range) {
+    Entry entry = entries.get(attendee);
+    return entry == null ? Collections.<Event>emptyList() : entry.events.getOverlapping(range);
+  }
+
+  /**
+   * Returns the times that {@code attendee} is busy, including every occurrence of their recurring
+   * events.
+   */
+  public BusyTimeline getBusyTimeline(String attendee) {
+    Entry entry = entries.get(attendee);
+    return entry == null ? BusyTimeline.EMPTY : entry.getTimeline(null);
+  }
+
+  /**
+   * Returns the times that at least one of {@code attendees} is busy.
+   */
+  public BusyTimeline getBusyTimeline(Collection<String> attendees) {
+    return getBusyTimeline(attendees, null);
+  }
+
+  /**
+   * Returns the times within {@code window} that at least one of {@code attendees} is busy. Only
+   * the part of each attendee's timeline that overlaps the window is merged. A {@code null} window
+   * merges the whole timelines.
+   */
+  public BusyTimeline getBusyTimeline(Collection<String> attendees, TimeRange window) {
+    List<BusyTimeline> timelines = new ArrayList<>(attendees.size());
+    for (String attendee : attendees) {
+      Entry entry = entries.get(attendee);
+      if (entry != null) {
+        timelines.add(entry.getTimeline(window));
+      }
+    }
+    return BusyTimeline.merge(timelines);
+  }
+
+  /**
+   * Returns an index that also contains {@code event}. Only the timelines of the event's attendees
+   * are updated, by merging the event into them, or by adding it to their recurring events.
+   */
+  public AttendeeIndex withEvent(Event event) {
+    Map<String, Entry> updated = new HashMap<>(entries);
+    for (String attendee : event.getAttendees()) {
+      Entry entry = entries.get(attendee);
+      if (entry == null) {
+        entry = Entry.EMPTY;
+      }
+      updated.put(attendee, entry.withEvent(event));
+    }
+    return new AttendeeIndex(updated);
+  }
+
+  /**
+   * Returns an index without one occurrence of {@code event}. Only the timelines of the event's
+   * attendees are rebuilt. If the index does not contain the event, it is returned unchanged.
+   */
+  public AttendeeIndex withoutEvent(Event event) {
+    Map<String, Entry> updated = null;
+    for (String attendee : event.getAttendees()) {
+      Entry entry = entries.get(attendee);
+      if (entry == null) {
+        continue;
+      }
+      EventIntervalTree attendeeEvents = entry.events.withoutEvent(event);
+      if (attendeeEvents == entry.events) {
+        continue;
+      }
+      if (updated == null) {
+        updated = new HashMap<>(entries);
+      }
+
+      if (attendeeEvents.size() == 0) {
+        updated.remove(attendee);
+      } else {
+        updated.put(attendee, Entry.of(attendeeEvents));
+      }
+    }
+    return updated == null ? this : new AttendeeIndex(updated);
+  }
+
+  /**
+   * The events of one attendee, the timeline built from the events that happen once, and the
+   * events that recur.
+   */
+  private static final class Entry {
+    private static final Entry EMPTY = new Entry(
+        EventIntervalTree.EMPTY, BusyTimeline.EMPTY, Collections.<Event>emptyList());
+
+    private final EventIntervalTree events;
+    private final BusyTimeline timeline;
+    private final List<Event> recurring;
+
+    private Entry(EventIntervalTree events, BusyTimeline timeline, List<Event> recurring) {
+      this.events = events;
+      this.timeline = timeline;
+      this.recurring = recurring;
+    }
+
+    private static Entry of(EventIntervalTree events) {
+      List<Event> once = new ArrayList<>();
+      List<Event> recurring = new ArrayList<>();
+      for (Event event : events.getEvents()) {
+        (event.isRecurring() ? recurring : once).add(event);
+      }
+      return new Entry(events, BusyTimeline.fromEvents(once),
+          recurring.isEmpty() ? Collections.<Event>emptyList() : recurring);
+    }
+
+    private Entry withEvent(Event event) {
+      if (!event.isRecurring()) {
+        return new Entry(events.withEvent(event), timeline.withRange(event.getWhen()), recurring);
+      }
+      List<Event> updated = new ArrayList<>(recurring.size() + 1);
+      updated.addAll(recurring);
+      updated.add(event);
+      return new Entry(events.withEvent(event), timeline, updated);
+    }
+
+    /**
+     * Returns the part of the timeline within {@code window}, or all of it if the window is
+     * {@code null}, with the occurrences of the recurring events merged in.
+     */
+    private BusyTimeline getTimeline(TimeRange window) {
+      BusyTimeline once = window == null ? timeline : timeline.within(window);
+      if (recurring.isEmpty()) {
+        return once;
+      }
+      return BusyTimeline.merge(once, BusyTimeline.fromEvents(recurring, window));
+    }
+  }
+}
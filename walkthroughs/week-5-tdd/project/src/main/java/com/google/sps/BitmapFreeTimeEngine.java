@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds free time by marking every busy minute of the window in a bitmap and scanning it for runs
+ * of free minutes. A day is 1440 minutes, so a day's bitmap fits in 23 {@code long}s and a month's
+ * in under 700; marking a range sets whole words at a time, which is the same as OR-ing together
+ * one bitmap per attendee. The bitmap is reused between calls on the same thread, so the only
+ * allocations are the results.
+ */
+public final class BitmapFreeTimeEngine implements FreeTimeEngine {
+  private static final int WORDS_PER_DAY =
+      (TimeRange.MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  private static final ThreadLocal<long[]> BITMAPS = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      return new long[WORDS_PER_DAY];
+    }
+  };
+
+  @Override
+  public Collection<TimeRange> findFreeTimes(
+      List<TimeRange> busyTimes, TimeRange window, long duration) {
+    ArrayList<TimeRange> options = new ArrayList<TimeRange>();
+    // Minutes in the bitmap count from the start of the window
+    int minutes = window.duration();
+    if (minutes <= 0 || duration > minutes) {
+      return options;
+    }
+
+    int words = (minutes + Long.SIZE - 1) / Long.SIZE;
+    long[] busy = BITMAPS.get();
+    if (busy.length < words) {
+      busy = new long[words];
+      BITMAPS.set(busy);
+    }
+    for (int i = 0; i < words; i++) {
+      busy[i] = 0;
+    }
+    for (int i = 0; i < busyTimes.size(); i++) {
+      TimeRange range = busyTimes.get(i);
+      // Subtract as longs so ranges far from the window can't overflow
+      long start = Math.max((long) range.start() - window.start(), 0);
+      long end = Math.min((long) range.end() - window.start(), minutes);
+      if (start < end) {
+        markBusy(busy, (int) start, (int) end);
+      }
+    }
+
+    int minute = 0;
+    while (minute < minutes) {
+      int freeStart = nextFreeMinute(busy, words, minutes, minute);
+      if (freeStart >= minutes) {
+        break;
+      }
+      int freeEnd = nextBusyMinute(busy, words, minutes, freeStart);
+      if (freeEnd - freeStart >= duration) {
+        options.add(TimeRange.fromStartEnd(
+            window.start() + freeStart, window.start() + freeEnd, /*inclusive=*/false));
+      }
+      minute = freeEnd;
+    }
+    return options;
+  }
+
+  /**
+   * Sets the bits for the minutes in {@code [start, end)}, where {@code start < end}.
+   */
+  private static void markBusy(long[] busy, int start, int end) {
+    int firstWord = start / Long.SIZE;
+    int lastWord = (end - 1) / Long.SIZE;
+    // Shifts only use the low 6 bits of the distance, so these are the bits from the start
+    // minute up and from the last minute down within their words.
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> (Long.SIZE - 1 - ((end - 1) % Long.SIZE));
+    if (firstWord == lastWord) {
+      busy[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    busy[firstWord] |= firstMask;
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      busy[word] = -1L;
+    }
+    busy[lastWord] |= lastMask;
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or {@code minutes} if there is none.
+   */
+  private static int nextFreeMinute(long[] busy, int words, int minutes, int from) {
+    int word = from / Long.SIZE;
+    long free = ~busy[word] & (-1L << from);
+    while (free == 0) {
+      word++;
+      if (word == words) {
+        return minutes;
+      }
+      free = ~busy[word];
+    }
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(free), minutes);
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or {@code minutes} if there is none.
+   */
+  private static int nextBusyMinute(long[] busy, int words, int minutes, int from) {
+    int word = from / Long.SIZE;
+    long set = busy[word] & (-1L << from);
+    while (set == 0) {
+      word++;
+      if (word == words) {
+        return minutes;
+      }
+      set = busy[word];
+    }
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(set), minutes);
+  }
+}
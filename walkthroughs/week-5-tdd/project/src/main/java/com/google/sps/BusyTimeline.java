@@ -0,0 +1,307 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The times that someone (or a group of people) is busy during the day, kept as a sorted list of
+ * non-overlapping ranges. Overlapping and touching ranges are coalesced into one, so merging the
+ * timelines of several people is a linear walk instead of a sort. Timelines are considered
+ * read-only.
+ */
+public final class BusyTimeline {
+  public static final BusyTimeline EMPTY = new BusyTimeline(new int[0]);
+
+  // Groups of at most this many timelines are merged on one thread.
+  private static final int SEQUENTIAL_CUTOFF = 16;
+
+  // Below this many ranges in total, handing the merge to other threads costs more than it saves.
+  private static final long PARALLEL_THRESHOLD = 1 << 14;
+
+  // The start (inclusive) and end (exclusive) of every busy range, interleaved:
+  // [start0, end0, start1, end1, ...].
+  private final int[] bounds;
+
+  private BusyTimeline(int[] bounds) {
+    this.bounds = bounds;
+  }
+
+  /**
+   * Returns the number of busy ranges in this timeline.
+   */
+  public int size() {
+    return bounds.length / 2;
+  }
+
+  /**
+   * Returns the start of the {@code index}th busy range in minutes.
+   */
+  public int start(int index) {
+    return bounds[2 * index];
+  }
+
+  /**
+   * Returns the exclusive end of the {@code index}th busy range in minutes.
+   */
+  public int end(int index) {
+    return bounds[2 * index + 1];
+  }
+
+  /**
+   * Returns a new, modifiable list with a {@code TimeRange} for every busy range, ordered by start.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> ranges = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) {
+      ranges.add(TimeRange.fromStartEnd(start(i), end(i), /*inclusive=*/false));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the part of this timeline that overlaps {@code window}. Busy ranges are kept whole,
+   * even where they stick out of the window. Since the ranges never overlap, they are sorted by end
+   * as well as by start, so the first one is found with a binary search.
+   */
+  public BusyTimeline within(TimeRange window) {
+    int first = firstEndingAfter(window.start());
+    int last = first;
+    while (last < size() && start(last) < window.end()) {
+      last++;
+    }
+    if (first == 0 && last == size()) {
+      return this;
+    }
+    return new BusyTimeline(Arrays.copyOfRange(bounds, 2 * first, 2 * last));
+  }
+
+  /**
+   * Adds every gap in this timeline within {@code window} that lasts at least {@code duration}
+   * minutes to {@code out}, in order. The gaps go straight into the buffer, so nothing is
+   * allocated once it has grown to fit.
+   */
+  public void addFreeTimes(TimeRange window, long duration, RangeBuffer out) {
+    int free = window.start();
+    for (int i = firstEndingAfter(window.start()); i < size() && start(i) < window.end(); i++) {
+      if (start(i) > free && (long) start(i) - free >= duration) {
+        out.add(free, start(i) - free);
+      }
+      free = Math.max(free, end(i));
+    }
+    if (free < window.end() && (long) window.end() - free >= duration) {
+      out.add(free, window.end() - free);
+    }
+  }
+
+  /**
+   * Returns a timeline that is also busy during {@code range}. This timeline is left unchanged.
+   */
+  public BusyTimeline withRange(TimeRange range) {
+    if (range.duration() <= 0) {
+      return this;
+    }
+    return merge(this, new BusyTimeline(new int[] {range.start(), range.end()}));
+  }
+
+  /**
+   * Creates the timeline of someone who is busy for every occurrence of every event in
+   * {@code events}.
+   */
+  public static BusyTimeline fromEvents(Collection<Event> events) {
+    return fromEvents(events, null);
+  }
+
+  /**
+   * Creates the timeline of someone who is busy for every occurrence of an event in
+   * {@code events} that overlaps {@code window}. Only those occurrences are worked out, so
+   * recurring events cost as much as the part of them inside the window. A {@code null} window
+   * includes every occurrence.
+   */
+  public static BusyTimeline fromEvents(Collection<Event> events, TimeRange window) {
+    List<TimeRange> ranges = new ArrayList<>(events.size());
+    for (Event event : events) {
+      // Occurrences without any duration don't keep anyone busy, so they are never returned
+      Iterator<TimeRange> occurrences =
+          event.occurrences(window == null ? event.getSpan() : window);
+      while (occurrences.hasNext()) {
+        ranges.add(occurrences.next());
+      }
+    }
+    Collections.sort(ranges, TimeRange.ORDER_BY_START);
+
+    int[] bounds = new int[2 * ranges.size()];
+    int length = 0;
+    for (TimeRange range : ranges) {
+      if (length > 0 && range.start() <= bounds[length - 1]) {
+        // Overlaps or touches the previous range, so extend it instead of starting a new one
+        bounds[length - 1] = Math.max(bounds[length - 1], range.end());
+      } else {
+        bounds[length++] = range.start();
+        bounds[length++] = range.end();
+      }
+    }
+    return new BusyTimeline(Arrays.copyOf(bounds, length));
+  }
+
+  /**
+   * Returns the timeline of someone who is busy whenever either {@code a} or {@code b} is busy.
+   */
+  public static BusyTimeline merge(BusyTimeline a, BusyTimeline b) {
+    if (a.size() == 0) {
+      return b;
+    }
+    if (b.size() == 0) {
+      return a;
+    }
+
+    int[] bounds = new int[a.bounds.length + b.bounds.length];
+    int length = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.bounds.length || j < b.bounds.length) {
+      // Take whichever range starts first
+      int[] from;
+      int index;
+      if (j == b.bounds.length || (i < a.bounds.length && a.bounds[i] <= b.bounds[j])) {
+        from = a.bounds;
+        index = i;
+        i += 2;
+      } else {
+        from = b.bounds;
+        index = j;
+        j += 2;
+      }
+
+      if (length > 0 && from[index] <= bounds[length - 1]) {
+        bounds[length - 1] = Math.max(bounds[length - 1], from[index + 1]);
+      } else {
+        bounds[length++] = from[index];
+        bounds[length++] = from[index + 1];
+      }
+    }
+    return new BusyTimeline(length == bounds.length ? bounds : Arrays.copyOf(bounds, length));
+  }
+
+  /**
+   * Returns the timeline of a group of people who are busy whenever any of {@code timelines} is
+   * busy. Timelines are merged in pairs, so every range is copied about log(k) times. Large groups
+   * (e.g. an all-hands meeting) are merged in parallel on the common {@code ForkJoinPool}.
+   */
+  public static BusyTimeline merge(List<BusyTimeline> timelines) {
+    if (timelines.isEmpty()) {
+      return EMPTY;
+    }
+    if (timelines.size() > SEQUENTIAL_CUTOFF && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      long ranges = 0;
+      for (BusyTimeline timeline : timelines) {
+        ranges += timeline.size();
+      }
+      if (ranges >= PARALLEL_THRESHOLD) {
+        return merge(timelines, ForkJoinPool.commonPool());
+      }
+    }
+    return merge(timelines, 0, timelines.size());
+  }
+
+  /**
+   * Merges {@code timelines} like {@link #merge(List)}, splitting the work into tasks on
+   * {@code pool} however few timelines there are.
+   */
+  static BusyTimeline merge(List<BusyTimeline> timelines, ForkJoinPool pool) {
+    if (timelines.isEmpty()) {
+      return EMPTY;
+    }
+    return pool.invoke(new MergeTask(timelines, 0, timelines.size()));
+  }
+
+  private static BusyTimeline merge(List<BusyTimeline> timelines, int from, int to) {
+    if (to - from == 1) {
+      return timelines.get(from);
+    }
+    int middle = (from + to) >>> 1;
+    return merge(merge(timelines, from, middle), merge(timelines, middle, to));
+  }
+
+  /**
+   * Merges the timelines from {@code from} (inclusive) to {@code to} (exclusive). Halves are
+   * merged in parallel until there are few enough timelines left to merge them in one go.
+   */
+  private static final class MergeTask extends RecursiveTask<BusyTimeline> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<BusyTimeline> timelines;
+    private final int from;
+    private final int to;
+
+    private MergeTask(List<BusyTimeline> timelines, int from, int to) {
+      this.timelines = timelines;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected BusyTimeline compute() {
+      if (to - from <= SEQUENTIAL_CUTOFF) {
+        return merge(timelines, from, to);
+      }
+      int middle = (from + to) >>> 1;
+      MergeTask first = new MergeTask(timelines, from, middle);
+      first.fork();
+      BusyTimeline second = new MergeTask(timelines, middle, to).compute();
+      return merge(first.join(), second);
+    }
+  }
+
+  /**
+   * Returns the index of the first range that ends after {@code time}. The ranges never overlap,
+   * so they are sorted by end as well as by start, and it is found with a binary search.
+   */
+  private int firstEndingAfter(int time) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (end(middle) <= time) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof BusyTimeline && Arrays.equals(bounds, ((BusyTimeline) other).bounds);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bounds);
+  }
+
+  @Override
+  public String toString() {
+    return "BusyTimeline: " + toTimeRanges();
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An in-memory calendar that events can be added to and removed from while queries are running.
+ * Readers take a {@link Snapshot} and query it; a snapshot never changes, so a query sees the
+ * same events from start to finish and never waits for a writer. Writers are serialized and each
+ * one publishes a new snapshot, which shares everything but the changed attendees' entries with
+ * the previous one. A calendar may be backed by an {@link EventLog}, in which case every change is
+ * written to the log before it is published.
+ *
+ * <p>Only the index is shared between snapshots. The list of events is copied on every write, and
+ * removing an event first searches the list for it, so each write costs time and memory in
+ * proportion to the number of events. That suits calendars that are read far more often than they
+ * change; at a million events, a write copies a million references.
+ */
+public final class CalendarService {
+  private final EventLog log;
+  private volatile Snapshot snapshot;
+
+  /**
+   * Creates a new calendar that starts out with {@code events}.
+   *
+   * @param events The initial events. Must be non-null.
+   */
+  public CalendarService(Collection<Event> events) {
+    this(events, null);
+  }
+
+  /**
+   * Creates a new calendar that starts out with the events in {@code log} and records its changes
+   * there.
+   *
+   * @param log The log to load from and append to. Must be non-null.
+   */
+  public CalendarService(EventLog log) {
+    this(log.getEvents(), log);
+  }
+
+  private CalendarService(Collection<Event> events, EventLog log) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    List<Event> eventList = new ArrayList<>(events);
+    this.log = log;
+    this.snapshot = new Snapshot(0, eventList, new AttendeeIndex(eventList));
+  }
+
+  /**
+   * Returns the current state of the calendar.
+   */
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Adds {@code event} to the calendar and returns the snapshot that contains it.
+   *
+   * @throws UncheckedIOException If the change can't be written to the log. The calendar is left
+   *     unchanged.
+   */
+  public synchronized Snapshot addEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+    if (log != null) {
+      try {
+        log.append(event);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    Snapshot current = snapshot;
+    List<Event> events = new ArrayList<>(current.events.size() + 1);
+    events.addAll(current.events);
+    events.add(event);
+    snapshot = new Snapshot(current.version + 1, events, current.index.withEvent(event));
+    return snapshot;
+  }
+
+  /**
+   * Removes one occurrence of {@code event} from the calendar and returns the snapshot without
+   * it. Returns {@code null}, and leaves the calendar unchanged, if the calendar doesn't contain
+   * the event.
+   *
+   * @throws UncheckedIOException If the change can't be written to the log. The calendar is left
+   *     unchanged.
+   */
+  public synchronized Snapshot removeEvent(Event event) {
+    Snapshot current = snapshot;
+    int position = current.events.indexOf(event);
+    if (position < 0) {
+      return null;
+    }
+    if (log != null) {
+      try {
+        log.appendDelete(event);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    List<Event> events = new ArrayList<>(current.events);
+    events.remove(position);
+    snapshot = new Snapshot(current.version + 1, events, current.index.withoutEvent(event));
+    return snapshot;
+  }
+
+  /**
+   * The events of a calendar at one point in time. Snapshots are read-only.
+   */
+  public static final class Snapshot {
+    private final long version;
+    private final List<Event> events;
+    private final AttendeeIndex index;
+
+    private Snapshot(long version, List<Event> events, AttendeeIndex index) {
+      this.version = version;
+      this.events = events;
+      this.index = index;
+    }
+
+    /**
+     * Returns a number that goes up every time the calendar changes. Two snapshots of the same
+     * calendar with the same version have the same events.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Returns a read-only list of the events, in the order they were added.
+     */
+    public List<Event> getEvents() {
+      return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Returns the events indexed by attendee.
+     */
+    public AttendeeIndex getIndex() {
+      return index;
+    }
+  }
+}
@@ -17,17 +17,31 @@ package com.google.sps;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Event is the container class for when a specific group of people are meeting and are therefore
- * busy. Events are considered read-only.
+ * busy. An event may recur, in which case {@code when} is its first occurrence. Events are
+ * considered read-only.
  */
 public final class Event {
+  // Lets a single event be treated as a recurrence with one occurrence.
+  private static final Recurrence ONCE = new Recurrence(1, 1);
+
   private final String title;
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
 
+  // How the event repeats, or null if it happens once.
+  private final Recurrence recurrence;
+
+  // The attendees' IDs in the default AttendeeDictionary. Holding them keeps the names in the
+  // dictionary; once the event is collected, names no other event uses are dropped. Transient so
+  // that it isn't part of the JSON; events parsed from JSON work it out the first time it's needed.
+  private transient volatile AttendeeDictionary.Interned attendeeIds;
+
   /**
    * Creates a new event.
    *
@@ -36,6 +50,20 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, null);
+  }
+
+  /**
+   * Creates a new event that repeats.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time of the first occurrence. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param recurrence How the event repeats, or {@code null} if it happens once. The last
+   *     occurrence must end by the latest representable time.
+   */
+  public Event(
+      String title, TimeRange when, Collection<String> attendees, Recurrence recurrence) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -48,9 +76,16 @@ public final class Event {
       throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
     }
 
+    if (recurrence != null) {
+      // Throws if the last occurrence doesn't fit.
+      recurrence.getSpan(when);
+    }
+
     this.title = title;
     this.when = when;
+    this.recurrence = recurrence;
     this.attendees.addAll(attendees);
+    this.attendeeIds = AttendeeDictionary.getDefault().intern(this.attendees);
   }
 
   /**
@@ -67,6 +102,36 @@ public final class Event {
     return when;
   }
 
+  /**
+   * Returns how this event repeats, or {@code null} if it happens once.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Checks if this event happens more than once.
+   */
+  public boolean isRecurring() {
+    return recurrence != null;
+  }
+
+  /**
+   * Returns the range from the start of the first occurrence to the end of the last one. For
+   * events that happen once, this is {@link #getWhen()}.
+   */
+  public TimeRange getSpan() {
+    return recurrence == null ? when : recurrence.getSpan(when);
+  }
+
+  /**
+   * Returns the occurrences of this event that share at least one minute with {@code window}, in
+   * order. Occurrences are worked out lazily, so only those inside the window are ever created.
+   */
+  public Iterator<TimeRange> occurrences(TimeRange window) {
+    return (recurrence == null ? ONCE : recurrence).occurrences(when, window);
+  }
+
   /**
    * Returns a read-only set of required attendees for this event.
    */
@@ -76,6 +141,25 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns the sorted IDs of the attendees in the default {@code AttendeeDictionary}.
+   */
+  public int[] getAttendeeIds() {
+    return attendeeIds().clone();
+  }
+
+  /**
+   * Returns the sorted attendee IDs without copying them. Callers must not change the array.
+   */
+  int[] attendeeIds() {
+    AttendeeDictionary.Interned ids = attendeeIds;
+    if (ids == null) {
+      ids = AttendeeDictionary.getDefault().intern(attendees);
+      attendeeIds = ids;
+    }
+    return ids.getIds();
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -91,6 +175,7 @@ public final class Event {
   private static boolean equals(Event a, Event b) {
     // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
     // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees)
+        && Objects.equals(a.recurrence, b.recurrence);
   }
 }
@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An interval tree over the times of a set of events, for finding every event that overlaps a
+ * range in O(log n + k) time. The events are kept in an array sorted by start time, which doubles
+ * as a balanced binary search tree: the root of any slice of the array is its middle element. Each
+ * node also stores the latest end time in its subtree, so whole subtrees that end before the range
+ * starts can be skipped. A recurring event is stored by its span, from its first occurrence to its
+ * last. Trees are considered read-only.
+ */
+public final class EventIntervalTree {
+  public static final EventIntervalTree EMPTY = new EventIntervalTree(new Event[0]);
+
+  // Sorted by start time. Events that start at the same time keep the order they were added in.
+  private final Event[] events;
+
+  // maxEnds[i] is the latest end of any event's span in the subtree rooted at events[i].
+  private final int[] maxEnds;
+
+  /**
+   * Creates a new tree over {@code events}.
+   *
+   * @param events The events to put in the tree. Must be non-null.
+   */
+  public EventIntervalTree(Collection<Event> events) {
+    this(sortByStart(events));
+  }
+
+  private EventIntervalTree(Event[] sortedEvents) {
+    this.events = sortedEvents;
+    this.maxEnds = new int[sortedEvents.length];
+    computeMaxEnds(0, sortedEvents.length);
+  }
+
+  /**
+   * Returns the number of events in the tree.
+   */
+  public int size() {
+    return events.length;
+  }
+
+  /**
+   * Returns a read-only list of every event in the tree, ordered by start time.
+   */
+  public List<Event> getEvents() {
+    return Collections.unmodifiableList(Arrays.asList(events));
+  }
+
+  /**
+   * Returns every event with an occurrence that shares at least one minute with {@code range},
+   * ordered by start time. Events without any duration never overlap anything.
+   */
+  public List<Event> getOverlapping(TimeRange range) {
+    List<Event> overlapping = new ArrayList<>();
+    addOverlapping(0, events.length, range, overlapping);
+    return overlapping;
+  }
+
+  /**
+   * Returns a tree that also contains {@code event}. This tree is left unchanged.
+   */
+  public EventIntervalTree withEvent(Event event) {
+    // Insert after every event that starts at the same time or earlier
+    int low = 0;
+    int high = events.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (events[middle].getWhen().start() <= event.getWhen().start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    Event[] updated = new Event[events.length + 1];
+    System.arraycopy(events, 0, updated, 0, low);
+    updated[low] = event;
+    System.arraycopy(events, low, updated, low + 1, events.length - low);
+    return new EventIntervalTree(updated);
+  }
+
+  /**
+   * Returns a tree without one occurrence of {@code event}. If the tree does not contain the event,
+   * it is returned unchanged.
+   */
+  public EventIntervalTree withoutEvent(Event event) {
+    int index = Arrays.asList(events).indexOf(event);
+    if (index < 0) {
+      return this;
+    }
+
+    Event[] updated = new Event[events.length - 1];
+    System.arraycopy(events, 0, updated, 0, index);
+    System.arraycopy(events, index + 1, updated, index, events.length - index - 1);
+    return new EventIntervalTree(updated);
+  }
+
+  private int computeMaxEnds(int from, int to) {
+    if (from >= to) {
+      return Integer.MIN_VALUE;
+    }
+    int root = (from + to) >>> 1;
+    int maxEnd = Math.max(events[root].getSpan().end(),
+        Math.max(computeMaxEnds(from, root), computeMaxEnds(root + 1, to)));
+    maxEnds[root] = maxEnd;
+    return maxEnd;
+  }
+
+  private void addOverlapping(int from, int to, TimeRange range, List<Event> out) {
+    if (from >= to) {
+      return;
+    }
+    int root = (from + to) >>> 1;
+    // Nothing in this subtree ends after the range starts
+    if (maxEnds[root] <= range.start()) {
+      return;
+    }
+
+    addOverlapping(from, root, range, out);
+    Event event = events[root];
+    TimeRange when = event.getWhen();
+    // The root and everything to its right start after the range ends
+    if (when.start() >= range.end()) {
+      return;
+    }
+    if (event.isRecurring()) {
+      if (event.occurrences(range).hasNext()) {
+        out.add(event);
+      }
+    } else if (when.end() > range.start() && when.duration() > 0) {
+      out.add(event);
+    }
+    addOverlapping(root + 1, to, range, out);
+  }
+
+  private static Event[] sortByStart(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    Event[] sorted = events.toArray(new Event[events.size()]);
+    // Object sorts are stable, so events that start together stay in the order they were given
+    Arrays.sort(sorted, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    return sorted;
+  }
+}
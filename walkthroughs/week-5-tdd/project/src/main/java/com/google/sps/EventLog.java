@@ -0,0 +1,350 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only file of calendar changes. Opening a log maps the file into memory and replays
+ * it, so loading a large calendar is a walk over fixed-width binary records rather than parsing
+ * JSON. New changes are appended to the end of the file.
+ *
+ * <p>Replaying builds an {@code Event} on the heap for every event still in the log, since the
+ * calendar keeps its events in memory anyway. Mapping the file only spares reading it through a
+ * second, heap-sized copy of its bytes; the heap still grows with the number of events.
+ *
+ * <p>The file starts with the magic number {@code SPSE} and a format version, followed by
+ * records. Each record starts with a one-byte type:
+ *
+ * <ul>
+ *   <li>{@code 'N'}: the name of an attendee. The names of a file get IDs 0, 1, 2, ... in the order
+ *       they appear, and events refer to attendees by these IDs. Fields: the name.
+ *   <li>{@code 'E'}: an event was added. Fields: start (int), duration (int), the minutes between
+ *       occurrences (int, 0 for events that happen once), the number of occurrences (int), title,
+ *       the number of attendees (int) and that many attendee IDs (int).
+ *   <li>{@code 'D'}: an event was removed. Same fields as {@code 'E'}.
+ *   <li>{@code 0}: a single byte of padding, which is skipped.
+ * </ul>
+ *
+ * <p>Strings are an int byte length followed by UTF-8 bytes. Numbers are big-endian. A record cut
+ * short by a crash or a failed append is overwritten with padding, rather than cut off the end of
+ * the file, because the file may still be mapped. The next append goes over the padding.
+ *
+ * <p>Version 1 logs have no recurrence fields in their event records, so every event in them
+ * happens once. They are still read, and new records are written to them in the version 1 layout;
+ * recurring events can't be added to them.
+ */
+public final class EventLog implements Closeable {
+  private static final int MAGIC = 0x53505345; // "SPSE"
+  private static final int FORMAT_VERSION = 2;
+  private static final int FORMAT_VERSION_WITHOUT_RECURRENCE = 1;
+  private static final int HEADER_SIZE = 8;
+
+  private static final byte NAME = 'N';
+  private static final byte EVENT = 'E';
+  private static final byte DELETE = 'D';
+  private static final byte PADDING = 0;
+
+  private final FileChannel channel;
+  private final int formatVersion;
+  private final List<Event> events;
+
+  // The ID of every attendee name in the file. Guarded by this.
+  private final Map<String, Integer> nameIds;
+
+  // The offset just past the last complete record. Appends go here rather than to the end of the
+  // file, so bytes left behind by a failed write are overwritten. Guarded by this.
+  private long end;
+
+  private EventLog(FileChannel channel, int formatVersion, List<Event> events,
+      Map<String, Integer> nameIds, long end) {
+    this.channel = channel;
+    this.formatVersion = formatVersion;
+    this.events = events;
+    this.nameIds = nameIds;
+    this.end = end;
+  }
+
+  /**
+   * Opens the log at {@code path}, creating an empty one if the file doesn't exist, and reads the
+   * events in it.
+   *
+   * @throws IOException If the file can't be read or isn't an event log.
+   */
+  public static EventLog open(Path path) throws IOException {
+    return open(path, FileChannel.open(
+        path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+  }
+
+  /**
+   * Reads the log from {@code channel}, which is open for reading and writing {@code path}. The log
+   * takes ownership of the channel.
+   */
+  static EventLog open(Path path, FileChannel channel) throws IOException {
+    try {
+      long size = channel.size();
+      if (size == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        writeFully(channel, header, 0);
+        return new EventLog(channel, FORMAT_VERSION, new ArrayList<Event>(),
+            new HashMap<String, Integer>(), HEADER_SIZE);
+      }
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Event log is too large to map: " + path);
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (size < HEADER_SIZE || buffer.getInt() != MAGIC) {
+        throw new IOException("Not an event log: " + path);
+      }
+      int formatVersion = buffer.getInt();
+      if (formatVersion != FORMAT_VERSION && formatVersion != FORMAT_VERSION_WITHOUT_RECURRENCE) {
+        throw new IOException("Unsupported event log version " + formatVersion + ": " + path);
+      }
+
+      List<String> names = new ArrayList<>();
+      Map<String, Integer> nameIds = new HashMap<>();
+      List<Event> events = new ArrayList<>();
+      int end = replay(buffer, formatVersion, names, nameIds, events);
+      if (!isPadding(buffer, end)) {
+        // Blank out the partial record so that it isn't read as the start of the next append.
+        overwriteWithPadding(channel, end, size);
+      }
+      return new EventLog(channel, formatVersion, events, nameIds, end);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a read-only list of the events in the log when it was opened, in the order they were
+   * added.
+   */
+  public List<Event> getEvents() {
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * Records that {@code event} was added. The record is written before this returns.
+   *
+   * @throws IOException If the record can't be written, or if {@code event} recurs and the log is
+   *     in the version 1 format.
+   */
+  public synchronized void append(Event event) throws IOException {
+    write(EVENT, event);
+  }
+
+  /**
+   * Records that one occurrence of {@code event} was removed.
+   */
+  public synchronized void appendDelete(Event event) throws IOException {
+    write(DELETE, event);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Reads the records in {@code buffer} into {@code events} and returns the position after the
+   * last complete record.
+   */
+  private static int replay(ByteBuffer buffer, int formatVersion, List<String> names,
+      Map<String, Integer> nameIds, List<Event> events) throws IOException {
+    boolean hasRecurrence = formatVersion != FORMAT_VERSION_WITHOUT_RECURRENCE;
+    // The live events by the order they were added in, and where each copy of an event is in that
+    // order, so that removing the first copy of an event doesn't scan the others.
+    Map<Long, Event> live = new LinkedHashMap<>();
+    Map<Event, ArrayDeque<Long>> copies = new HashMap<>();
+    long added = 0;
+    int end = buffer.position();
+    try {
+      while (buffer.hasRemaining()) {
+        byte type = buffer.get();
+        if (type == PADDING) {
+          continue;
+        } else if (type == NAME) {
+          String name = readString(buffer);
+          nameIds.put(name, names.size());
+          names.add(name);
+        } else if (type == EVENT || type == DELETE) {
+          int start = buffer.getInt();
+          int duration = buffer.getInt();
+          int interval = hasRecurrence ? buffer.getInt() : 0;
+          int count = hasRecurrence ? buffer.getInt() : 1;
+          String title = readString(buffer);
+          int attendeeCount = buffer.getInt();
+          if (attendeeCount < 0) {
+            throw new IllegalArgumentException("Negative attendee count");
+          }
+          if (attendeeCount > buffer.remaining() / 4) {
+            throw new BufferUnderflowException();
+          }
+          List<String> attendees = new ArrayList<>(attendeeCount);
+          for (int i = 0; i < attendeeCount; i++) {
+            attendees.add(names.get(buffer.getInt()));
+          }
+          Recurrence recurrence = interval == 0 ? null : new Recurrence(interval, count);
+          Event event = new Event(
+              title, TimeRange.fromStartDuration(start, duration), attendees, recurrence);
+          if (type == EVENT) {
+            live.put(added, event);
+            copies.computeIfAbsent(event, e -> new ArrayDeque<>()).addLast(added);
+            added++;
+          } else {
+            ArrayDeque<Long> eventCopies = copies.get(event);
+            if (eventCopies != null) {
+              live.remove(eventCopies.removeFirst());
+              if (eventCopies.isEmpty()) {
+                copies.remove(event);
+              }
+            }
+          }
+        } else {
+          throw new IOException("Unknown event log record type " + type + " at " + end);
+        }
+        end = buffer.position();
+      }
+    } catch (BufferUnderflowException e) {
+      // The last record was cut short; everything before it is still good.
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Corrupt event log record at " + end, e);
+    }
+    events.addAll(live.values());
+    return end;
+  }
+
+  /** Checks if everything in {@code buffer} from {@code from} on is padding. */
+  private static boolean isPadding(ByteBuffer buffer, int from) {
+    for (int i = from; i < buffer.limit(); i++) {
+      if (buffer.get(i) != PADDING) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void overwriteWithPadding(FileChannel channel, long from, long to)
+      throws IOException {
+    if (from < to) {
+      writeFully(channel, ByteBuffer.allocate((int) (to - from)), from);
+      channel.force(false);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      throw new IllegalArgumentException("Negative string length");
+    }
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void write(byte type, Event event) throws IOException {
+    Recurrence recurrence = event.getRecurrence();
+    boolean hasRecurrence = formatVersion != FORMAT_VERSION_WITHOUT_RECURRENCE;
+    if (recurrence != null && !hasRecurrence) {
+      throw new IOException("Version 1 event logs can't store recurring events");
+    }
+
+    List<byte[]> newNames = new ArrayList<>();
+    int[] ids = new int[event.getAttendees().size()];
+    int i = 0;
+    for (String attendee : event.getAttendees()) {
+      Integer id = nameIds.get(attendee);
+      if (id == null) {
+        id = nameIds.size() + newNames.size();
+        newNames.add(attendee.getBytes(StandardCharsets.UTF_8));
+      }
+      ids[i++] = id;
+    }
+    byte[] title = event.getTitle().getBytes(StandardCharsets.UTF_8);
+
+    int size = 1 + 4 + 4 + (hasRecurrence ? 4 + 4 : 0) + 4 + title.length + 4 + 4 * ids.length;
+    for (byte[] name : newNames) {
+      size += 1 + 4 + name.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (byte[] name : newNames) {
+      buffer.put(NAME).putInt(name.length).put(name);
+    }
+    buffer.put(type).putInt(event.getWhen().start()).putInt(event.getWhen().duration());
+    if (hasRecurrence) {
+      buffer.putInt(recurrence == null ? 0 : recurrence.getInterval())
+          .putInt(recurrence == null ? 1 : recurrence.getCount());
+    }
+    buffer.putInt(title.length)
+        .put(title)
+        .putInt(ids.length);
+    for (int id : ids) {
+      buffer.putInt(id);
+    }
+    buffer.flip();
+
+    // Names and the record go out in one write, so a crash can't leave IDs that point nowhere.
+    try {
+      writeFully(channel, buffer, end);
+      channel.force(false);
+    } catch (IOException | RuntimeException e) {
+      // Blank out whatever part of the record made it out, so that it isn't replayed as the start
+      // of the next record.
+      try {
+        overwriteWithPadding(channel, end, Math.min(end + size, channel.size()));
+      } catch (IOException paddingFailure) {
+        e.addSuppressed(paddingFailure);
+      }
+      throw e;
+    }
+    end += size;
+
+    i = 0;
+    for (String attendee : event.getAttendees()) {
+      if (!nameIds.containsKey(attendee)) {
+        nameIds.put(attendee, ids[i]);
+      }
+      i++;
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
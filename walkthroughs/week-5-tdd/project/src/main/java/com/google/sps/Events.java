@@ -15,6 +15,11 @@
 
 package com.google.sps;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 public final class Events {
@@ -132,6 +137,48 @@ public final class Events {
           Arrays.asList(PERSON_LIAM)),
   };
 
+  /**
+   * The rooms that meetings can be booked in. Rooms are booked by events that list the room's name
+   * as an attendee.
+   */
+  public static final Room[] rooms = {
+      new Room("Small Room", 4),
+      new Room("Large Room", 12),
+  };
+
+  /**
+   * The system property with the path of the event log that the calendar is kept in. Without it,
+   * the calendar only lives in memory.
+   */
+  public static final String EVENT_LOG_PROPERTY = "sps.eventLog";
+
+  /**
+   * The calendar that the servlets query and change. It starts out with the events above, or with
+   * the events in the event log if there is one.
+   */
+  public static final CalendarService CALENDAR = createCalendar();
+
+  private static CalendarService createCalendar() {
+    String path = System.getProperty(EVENT_LOG_PROPERTY);
+    if (path == null) {
+      return new CalendarService(Arrays.asList(events));
+    }
+
+    try {
+      Path logPath = Paths.get(path);
+      boolean isNew = !Files.exists(logPath);
+      CalendarService calendar = new CalendarService(EventLog.open(logPath));
+      if (isNew) {
+        for (Event event : events) {
+          calendar.addEvent(event);
+        }
+      }
+      return calendar;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   private Events() {
     // Disallow instances.
   }
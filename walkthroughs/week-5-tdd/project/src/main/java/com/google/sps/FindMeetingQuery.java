@@ -17,54 +17,289 @@ package com.google.sps;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 public final class FindMeetingQuery {
+  private final FreeTimeEngine engine;
+  private final SchedulerMetrics metrics;
+
+  /**
+   * Creates a query that finds free time with a {@code SortedFreeTimeEngine}.
+   */
+  public FindMeetingQuery() {
+    this(new SortedFreeTimeEngine());
+  }
+
+  /**
+   * Creates a query that finds free time with {@code engine}.
+   *
+   * @param engine The engine used to turn busy times into free times. Must be non-null.
+   */
+  public FindMeetingQuery(FreeTimeEngine engine) {
+    this(engine, SchedulerMetrics.getDefault());
+  }
+
+  /**
+   * Creates a query that finds free time with {@code engine} and records each query in
+   * {@code metrics}.
+   *
+   * @param engine The engine used to turn busy times into free times. Must be non-null.
+   * @param metrics Where to record queries. Must be non-null.
+   */
+  public FindMeetingQuery(FreeTimeEngine engine, SchedulerMetrics metrics) {
+    if (engine == null) {
+      throw new IllegalArgumentException("engine cannot be null");
+    }
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics cannot be null");
+    }
+
+    this.engine = engine;
+    this.metrics = metrics;
+  }
+
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    long started = System.nanoTime();
     // Compile events that will impact request attendees
     ArrayList<TimeRange> eventTimesOnlyMandatory = new ArrayList<TimeRange>();
     ArrayList<TimeRange> eventTimesWithOptional = new ArrayList<TimeRange>();
+    TimeRange window = request.getWindow();
+    int[] mandatoryIds = request.getAttendeeIds();
+    int[] optionalIds = request.getOptionalAttendeeIds();
     for (Event event : events) {
-      Set<String> intersection = new HashSet<String>(request.getAttendees());
-      intersection.retainAll(event.getAttendees());
-      if (intersection.size() > 0) {
-        eventTimesOnlyMandatory.add(event.getWhen());
-        eventTimesWithOptional.add(event.getWhen());
-      } else {
-        intersection = new HashSet<String>(request.getOptionalAttendees());
-        intersection.retainAll(event.getAttendees());
-        if (intersection.size() > 0) {
-          eventTimesWithOptional.add(event.getWhen());
-        }
+      if (!event.getSpan().overlaps(window)) {
+        continue;
+      }
+      if (AttendeeDictionary.intersects(event.attendeeIds(), mandatoryIds)) {
+        addOccurrences(event, window, eventTimesOnlyMandatory);
+        addOccurrences(event, window, eventTimesWithOptional);
+      } else if (AttendeeDictionary.intersects(event.attendeeIds(), optionalIds)) {
+        addOccurrences(event, window, eventTimesWithOptional);
       }
     }
-    Collection<TimeRange> options =  findFreeTimes(eventTimesWithOptional, request.getDuration());
-    if (options.size() > 0 || request.getAttendees().size() == 0 || request.getOptionalAttendees().size() == 0) {
-        return options;
+    return query(
+        eventTimesOnlyMandatory, eventTimesWithOptional, request, started, events.size());
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but only looks at the events in
+   * {@code events} that overlap the request window. The tree hands them back already ordered by
+   * start time, so the engine doesn't have to sort them again.
+   */
+  public Collection<TimeRange> query(EventIntervalTree events, MeetingRequest request) {
+    long started = System.nanoTime();
+    ArrayList<TimeRange> eventTimesOnlyMandatory = new ArrayList<TimeRange>();
+    ArrayList<TimeRange> eventTimesWithOptional = new ArrayList<TimeRange>();
+    int[] mandatoryIds = request.getAttendeeIds();
+    int[] optionalIds = request.getOptionalAttendeeIds();
+    TimeRange window = request.getWindow();
+    List<Event> overlapping = events.getOverlapping(window);
+    for (Event event : overlapping) {
+      if (AttendeeDictionary.intersects(event.attendeeIds(), mandatoryIds)) {
+        addOccurrences(event, window, eventTimesOnlyMandatory);
+        addOccurrences(event, window, eventTimesWithOptional);
+      } else if (AttendeeDictionary.intersects(event.attendeeIds(), optionalIds)) {
+        addOccurrences(event, window, eventTimesWithOptional);
+      }
     }
-    return findFreeTimes(eventTimesOnlyMandatory, request.getDuration());
-  }
-
-  private Collection<TimeRange> findFreeTimes(ArrayList<TimeRange> eventTimes, long duration) {
-    eventTimes.add(TimeRange.fromStartDuration(TimeRange.END_OF_DAY + 1, 0));
-    Collections.sort(eventTimes, TimeRange.ORDER_BY_START);
-    int start = TimeRange.START_OF_DAY;
-    ArrayList<TimeRange> options = new ArrayList<TimeRange>();
-    for (TimeRange eventTime : eventTimes) { 
-      // Checks if not overlapping with the previous event
-      if (eventTime.start() > start) {
-        // Adds gap between meeting times if it exceeds the requested duration
-        if (eventTime.start() - start >= duration) {
-          options.add(TimeRange.fromStartEnd(start, eventTime.start(), /*inclusive=*/false));
-        }
-        start = eventTime.end();
-      } else if (eventTime.end() > start) {
-        // Alters start time if event ends after a previous event
-        start = eventTime.end();
+    return query(
+        eventTimesOnlyMandatory, eventTimesWithOptional, request, started, overlapping.size());
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but only looks at the busy timelines of the
+   * requested attendees by going through {@code index}.
+   */
+  public Collection<TimeRange> query(AttendeeIndex index, MeetingRequest request) {
+    long started = System.nanoTime();
+    // The index keeps a merged timeline per attendee, so there is nothing left to sort here
+    TimeRange window = request.getWindow();
+    BusyTimeline onlyMandatory = index.getBusyTimeline(request.getAttendees(), window);
+    BusyTimeline withOptional = BusyTimeline.merge(
+        onlyMandatory, index.getBusyTimeline(request.getOptionalAttendees(), window));
+    return query(onlyMandatory.toTimeRanges(), withOptional.toTimeRanges(), request, started,
+        withOptional.size());
+  }
+
+  /**
+   * Same as {@link #query(AttendeeIndex, MeetingRequest)}, but puts the free times into
+   * {@code out}, replacing what was there, instead of returning new {@code TimeRange} objects.
+   * The gaps come straight out of the merged timelines, so a caller that reuses {@code out}
+   * doesn't allocate anything per gap. The engine is not used, since the timelines are already
+   * sorted and merged.
+   */
+  public void queryInto(AttendeeIndex index, MeetingRequest request, RangeBuffer out) {
+    long started = System.nanoTime();
+    TimeRange window = request.getWindow();
+    BusyTimeline onlyMandatory = index.getBusyTimeline(request.getAttendees(), window);
+    BusyTimeline withOptional = BusyTimeline.merge(
+        onlyMandatory, index.getBusyTimeline(request.getOptionalAttendees(), window));
+
+    out.clear();
+    withOptional.addFreeTimes(window, request.getDuration(), out);
+    // Same fallback as query: without optional attendees if they leave no time at all
+    if (out.size() == 0 && !request.getAttendees().isEmpty()
+        && !request.getOptionalAttendees().isEmpty()) {
+      onlyMandatory.addFreeTimes(window, request.getDuration(), out);
+    }
+    metrics.recordQuery(
+        System.nanoTime() - started, withOptional.size(), withOptional.size(), out.size());
+  }
+
+  /**
+   * Answers every request in {@code requests} against the same {@code events}. The events are
+   * indexed once and shared by all of the requests, which are answered in parallel on the common
+   * {@code ForkJoinPool}.
+   *
+   * @return The answer to each request, in the same order as {@code requests}.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      Collection<Event> events, List<MeetingRequest> requests) {
+    return queryAll(new AttendeeIndex(events), requests);
+  }
+
+  /**
+   * Same as {@link #queryAll(Collection, List)}, but uses an existing {@code index}.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      AttendeeIndex index, List<MeetingRequest> requests) {
+    return requests.parallelStream()
+        .map(request -> query(index, request))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the times that every mandatory attendee and as many optional attendees as possible can
+   * make. Unlike {@link #query(Collection, MeetingRequest)}, which only tries all or none of the
+   * optional attendees, this counts how many optional attendees are free for each possible slot,
+   * so it still finds the best times when only some of them can make it.
+   */
+  public Collection<TimeRange> queryMaximizingOptional(
+      Collection<Event> events, MeetingRequest request) {
+    return queryMaximizingOptional(new AttendeeIndex(events), request);
+  }
+
+  /**
+   * Same as {@link #queryMaximizingOptional(Collection, MeetingRequest)}, but only looks at the
+   * busy timelines of the requested attendees by going through {@code index}.
+   */
+  public Collection<TimeRange> queryMaximizingOptional(
+      AttendeeIndex index, MeetingRequest request) {
+    long started = System.nanoTime();
+    TimeRange window = request.getWindow();
+    BusyTimeline mandatory = index.getBusyTimeline(request.getAttendees(), window);
+    int ranges = mandatory.size();
+    List<BusyTimeline> optional = new ArrayList<>(request.getOptionalAttendees().size());
+    for (String attendee : request.getOptionalAttendees()) {
+      BusyTimeline timeline = index.getBusyTimeline(Collections.singletonList(attendee), window);
+      optional.add(timeline);
+      ranges += timeline.size();
+    }
+    Collection<TimeRange> options = OptionalAttendeeSweep.bestSlots(mandatory, optional,
+        !request.getAttendees().isEmpty(), window, request.getDuration());
+    metrics.recordQuery(System.nanoTime() - started, ranges, ranges, options.size());
+    return options;
+  }
+
+  /**
+   * Returns the times that every mandatory attendee and at least one room that fits everyone
+   * invited, mandatory and optional, are free for the whole meeting, along with which room.
+   * Optional attendees' own calendars are not considered. The times are ordered by start, then by
+   * the order of {@code rooms}; a time that suits several rooms is listed once for each.
+   */
+  public List<RoomSlot> queryWithRoom(
+      Collection<Event> events, MeetingRequest request, Collection<Room> rooms) {
+    return queryWithRoom(new AttendeeIndex(events), request, rooms);
+  }
+
+  /**
+   * Same as {@link #queryWithRoom(Collection, MeetingRequest, Collection)}, but finds the busy
+   * times of the attendees and the rooms through {@code index}. All of them go through one sweep,
+   * instead of finding the attendees' free times first and then checking each room.
+   */
+  public List<RoomSlot> queryWithRoom(
+      AttendeeIndex index, MeetingRequest request, Collection<Room> rooms) {
+    long started = System.nanoTime();
+    TimeRange window = request.getWindow();
+    int invited = request.getAttendees().size() + request.getOptionalAttendees().size();
+    BusyTimeline mandatory = index.getBusyTimeline(request.getAttendees(), window);
+    int ranges = mandatory.size();
+    List<Room> fitting = new ArrayList<>();
+    List<BusyTimeline> roomTimelines = new ArrayList<>();
+    for (Room room : rooms) {
+      if (room.getCapacity() >= invited) {
+        BusyTimeline timeline =
+            index.getBusyTimeline(Collections.singletonList(room.getName()), window);
+        fitting.add(room);
+        roomTimelines.add(timeline);
+        ranges += timeline.size();
       }
     }
+    List<RoomSlot> slots =
+        RoomSweep.slots(mandatory, fitting, roomTimelines, window, request.getDuration());
+    metrics.recordQuery(System.nanoTime() - started, ranges, ranges, slots.size());
+    return slots;
+  }
+
+  /**
+   * Returns the {@code limit} best meeting times for {@code request}, as ranked by
+   * {@code scorer}, best first. Unlike {@link #query(Collection, MeetingRequest)}, each time is
+   * exactly as long as the meeting, and the answer never has more than {@code limit} entries.
+   */
+  public List<TimeRange> queryRanked(
+      Collection<Event> events, MeetingRequest request, SlotScorer scorer, int limit) {
+    return scorer.topSlots(
+        query(events, request), request.getWindow(), request.getDuration(), limit);
+  }
+
+  /**
+   * Same as {@link #queryRanked(Collection, MeetingRequest, SlotScorer, int)}, but finds the free
+   * times through {@code index}.
+   */
+  public List<TimeRange> queryRanked(
+      AttendeeIndex index, MeetingRequest request, SlotScorer scorer, int limit) {
+    return scorer.topSlots(
+        query(index, request), request.getWindow(), request.getDuration(), limit);
+  }
+
+  /**
+   * Finds the free times and records the query, which started at {@code started} and looked at
+   * {@code scanned} events or busy ranges.
+   */
+  private Collection<TimeRange> query(List<TimeRange> eventTimesOnlyMandatory,
+      List<TimeRange> eventTimesWithOptional, MeetingRequest request, long started, int scanned) {
+    Collection<TimeRange> options =
+        query(eventTimesOnlyMandatory, eventTimesWithOptional, request);
+    metrics.recordQuery(
+        System.nanoTime() - started, scanned, eventTimesWithOptional.size(), options.size());
     return options;
   }
+
+  private Collection<TimeRange> query(List<TimeRange> eventTimesOnlyMandatory,
+      List<TimeRange> eventTimesWithOptional, MeetingRequest request) {
+    Collection<TimeRange> options = engine.findFreeTimes(
+        eventTimesWithOptional, request.getWindow(), request.getDuration());
+    if (options.size() > 0 || request.getAttendees().size() == 0 || request.getOptionalAttendees().size() == 0) {
+        return options;
+    }
+    return engine.findFreeTimes(
+        eventTimesOnlyMandatory, request.getWindow(), request.getDuration());
+  }
+
+  /**
+   * Adds the times of {@code event} to {@code times}. An event that happens once is added whole;
+   * only the occurrences of a recurring event that overlap {@code window} are added.
+   */
+  private static void addOccurrences(Event event, TimeRange window, List<TimeRange> times) {
+    if (!event.isRecurring()) {
+      times.add(event.getWhen());
+      return;
+    }
+    Iterator<TimeRange> occurrences = event.occurrences(window);
+    while (occurrences.hasNext()) {
+      times.add(occurrences.next());
+    }
+  }
 }
@@ -0,0 +1,32 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Strategy for finding the gaps in a window of time that no busy time range overlaps.
+ * {@code FindMeetingQuery} decides whose time counts as busy and hands the ranges to an engine to
+ * find the free time.
+ */
+public interface FreeTimeEngine {
+  /**
+   * Returns every gap of at least {@code duration} minutes within {@code window} that does not
+   * overlap any of {@code busyTimes}, ordered by start time. Busy times outside of the window are
+   * ignored. Engines may reorder {@code busyTimes}.
+   */
+  Collection<TimeRange> findFreeTimes(List<TimeRange> busyTimes, TimeRange window, long duration);
+}
@@ -21,6 +21,9 @@ import java.util.Collections;
 import java.util.HashSet;
 
 public final class MeetingRequest {
+  /** The longest window a request may ask about, in minutes. */
+  public static final int MAX_WINDOW_DURATION = 366 * TimeRange.MINUTES_PER_DAY;
+
   // All the people that should be attending this new meeting. Use a set to avoid duplicates.
   private final Collection<String> attendees = new HashSet<>();
 
@@ -30,8 +33,38 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // When the meeting may take place. Requests without a window are for the day starting at 0.
+  private final TimeRange window;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
+    this(attendees, duration, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Creates a request for a meeting that must take place within {@code window}. The window may
+   * span several days, e.g. when times are counted in minutes since the Unix epoch, up to
+   * {@link #MAX_WINDOW_DURATION} minutes.
+   *
+   * @throws IllegalArgumentException If {@code duration} is negative, or {@code window} is
+   *     missing, has a negative duration, ends past the latest representable time or is too long.
+   */
+  public MeetingRequest(Collection<String> attendees, long duration, TimeRange window) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+    if (duration < 0) {
+      throw new IllegalArgumentException("duration cannot be negative");
+    }
+    if (window.duration() < 0 || (long) window.start() + window.duration() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid window");
+    }
+    if (window.duration() > MAX_WINDOW_DURATION) {
+      throw new IllegalArgumentException(
+          "window can be at most " + MAX_WINDOW_DURATION + " minutes long");
+    }
+
     this.duration = duration;
+    this.window = window;
     this.attendees.addAll(attendees);
   }
 
@@ -39,6 +72,10 @@ public final class MeetingRequest {
    * Returns a read-only copy of the people who are required to attend this meeting.
    */
   public Collection<String> getAttendees() {
+    // Requests parsed from JSON that leave out a list of people won't have it set at all.
+    if (attendees == null) {
+      return Collections.emptySet();
+    }
     return Collections.unmodifiableCollection(attendees);
   }
 
@@ -46,9 +83,29 @@ public final class MeetingRequest {
    * Returns a read-only copy of the people who are optional to attend this meeting.
    */
   public Collection<String> getOptionalAttendees() {
+    if (optional_attendees == null) {
+      return Collections.emptySet();
+    }
     return Collections.unmodifiableCollection(optional_attendees);
   }
 
+  /**
+   * Returns the sorted IDs, in the default {@code AttendeeDictionary}, of the required attendees
+   * who already have one. Names without an ID aren't in any event and can't be busy, so they are
+   * left out.
+   */
+  public int[] getAttendeeIds() {
+    return AttendeeDictionary.getDefault().getKnownIds(getAttendees());
+  }
+
+  /**
+   * Returns the sorted IDs, in the default {@code AttendeeDictionary}, of the optional attendees
+   * who already have one.
+   */
+  public int[] getOptionalAttendeeIds() {
+    return AttendeeDictionary.getDefault().getKnownIds(getOptionalAttendees());
+  }
+
   /**
    * Adds one optional attendee for the meeting.
    */
@@ -64,4 +121,11 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Returns the span of time that the meeting must fall within.
+   */
+  public TimeRange getWindow() {
+    return window == null ? TimeRange.WHOLE_DAY : window;
+  }
 }
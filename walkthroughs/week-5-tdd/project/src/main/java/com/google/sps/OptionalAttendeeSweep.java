@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds the meeting times that the most optional attendees can make, without trying every subset
+ * of them. A busy range {@code [s, e)} rules out every meeting that starts in {@code (s - d, e)},
+ * where {@code d} is the meeting duration. After turning each busy range into the range of start
+ * times it rules out, one sweep over the sorted boundaries tracks how many optional attendees are
+ * busy for each possible start time.
+ */
+final class OptionalAttendeeSweep {
+  // The low two bits of a sweep point say what happens at its time.
+  private static final int OPTIONAL_END = 0;
+  private static final int OPTIONAL_START = 1;
+  private static final int MANDATORY_END = 2;
+  private static final int MANDATORY_START = 3;
+
+  private OptionalAttendeeSweep() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the times that every mandatory attendee and as many optional attendees as possible
+   * can make, ordered by start time. Like {@code FindMeetingQuery.query}, a request with only
+   * optional attendees returns nothing if none of them can make any time.
+   *
+   * @param mandatory When at least one mandatory attendee is busy.
+   * @param optional One timeline per optional attendee.
+   * @param hasMandatoryAttendees Whether the request has any mandatory attendees.
+   * @param window When the meeting must take place.
+   * @param duration The duration of the meeting in minutes.
+   */
+  static Collection<TimeRange> bestSlots(BusyTimeline mandatory, List<BusyTimeline> optional,
+      boolean hasMandatoryAttendees, TimeRange window, long duration) {
+    List<TimeRange> slots = new ArrayList<>();
+    if (duration > window.duration()) {
+      return slots;
+    }
+    int meetingLength = (int) Math.max(duration, 1);
+    // Meetings must start in [window.start(), endOfStarts) to end by the end of the window.
+    int endOfStarts = window.end() - meetingLength + 1;
+
+    long[] points = new long[2 * countRanges(mandatory, optional)];
+    int length =
+        addBlockedStarts(mandatory, meetingLength, MANDATORY_START, MANDATORY_END, points, 0);
+    for (BusyTimeline timeline : optional) {
+      length =
+          addBlockedStarts(timeline, meetingLength, OPTIONAL_START, OPTIONAL_END, points, length);
+    }
+    Arrays.sort(points, 0, length);
+
+    int busyMandatory = 0;
+    int busyOptional = 0;
+    int best = -1;
+    // The start times of the run of slots being built and how many optional attendees it suits.
+    int runStart = window.start();
+    int runEnd = window.start();
+    int runFree = -1;
+    int segmentStart = window.start();
+    int i = 0;
+    while (segmentStart < endOfStarts) {
+      // Apply everything that happens at the start of this segment.
+      while (i < length && time(points[i]) <= segmentStart) {
+        int kind = kind(points[i]);
+        if (kind == MANDATORY_START) {
+          busyMandatory++;
+        } else if (kind == MANDATORY_END) {
+          busyMandatory--;
+        } else if (kind == OPTIONAL_START) {
+          busyOptional++;
+        } else {
+          busyOptional--;
+        }
+        i++;
+      }
+      int segmentEnd = i < length ? Math.min(time(points[i]), endOfStarts) : endOfStarts;
+
+      int free = busyMandatory > 0 ? -1 : optional.size() - busyOptional;
+      if (free != runFree || segmentStart != runEnd) {
+        addRun(slots, runStart, runEnd, runFree, best, meetingLength);
+        if (free > best) {
+          slots.clear();
+          best = free;
+        }
+        runStart = segmentStart;
+        runFree = free;
+      }
+      runEnd = segmentEnd;
+      segmentStart = segmentEnd;
+    }
+    addRun(slots, runStart, runEnd, runFree, best, meetingLength);
+
+    if (best == 0 && !hasMandatoryAttendees && !optional.isEmpty()) {
+      // None of the optional attendees can make it and nobody else was asked.
+      slots.clear();
+    }
+    return slots;
+  }
+
+  private static void addRun(
+      List<TimeRange> slots, int runStart, int runEnd, int runFree, int best, int meetingLength) {
+    if (runFree >= 0 && runFree == best && runEnd > runStart) {
+      slots.add(TimeRange.fromStartEnd(runStart, runEnd - 1 + meetingLength, /*inclusive=*/false));
+    }
+  }
+
+  private static int countRanges(BusyTimeline mandatory, List<BusyTimeline> optional) {
+    int count = mandatory.size();
+    for (BusyTimeline timeline : optional) {
+      count += timeline.size();
+    }
+    return count;
+  }
+
+  /**
+   * Adds a start and end point for each range of start times that {@code timeline} rules out.
+   * Ranges that rule out overlapping start times are joined, so one person is never counted twice.
+   */
+  private static int addBlockedStarts(BusyTimeline timeline, int meetingLength, int startKind,
+      int endKind, long[] points, int length) {
+    int i = 0;
+    while (i < timeline.size()) {
+      int blockedStart = timeline.start(i) - meetingLength + 1;
+      int blockedEnd = timeline.end(i);
+      i++;
+      while (i < timeline.size() && timeline.start(i) - meetingLength + 1 <= blockedEnd) {
+        blockedEnd = timeline.end(i);
+        i++;
+      }
+      points[length++] = point(blockedStart, startKind);
+      points[length++] = point(blockedEnd, endKind);
+    }
+    return length;
+  }
+
+  private static long point(int time, int kind) {
+    return ((long) time << 2) | kind;
+  }
+
+  private static int time(long point) {
+    return (int) (point >> 2);
+  }
+
+  private static int kind(long point) {
+    return (int) (point & 3);
+  }
+}
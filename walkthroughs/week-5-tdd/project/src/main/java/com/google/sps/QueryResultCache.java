@@ -0,0 +1,157 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the answers to recent meeting requests, so that posting the same request again doesn't
+ * run the query again. Requests are the same if they have the same attendees and optional
+ * attendees in any order, duration, window and variant (e.g. the query mode). Answers are only
+ * reused for the calendar version they were computed against; once a newer version is seen, every
+ * older answer is dropped. When full, the least recently used answer is evicted. Caches are safe
+ * to use from several threads.
+ *
+ * @param <V> The type of the answers. Answers are shared between callers, so they should be
+ *     read-only.
+ */
+public final class QueryResultCache<V> {
+  private final SchedulerMetrics metrics;
+
+  // In access order, so the eldest entry is the least recently used. Guarded by this.
+  private final LinkedHashMap<Key, V> answers;
+
+  // The newest calendar version seen. Guarded by this.
+  private long version = Long.MIN_VALUE;
+
+  /**
+   * Creates a cache that holds up to {@code capacity} answers and counts hits and misses in the
+   * default {@code SchedulerMetrics}.
+   */
+  public QueryResultCache(int capacity) {
+    this(capacity, SchedulerMetrics.getDefault());
+  }
+
+  /**
+   * Creates a cache that holds up to {@code capacity} answers and counts hits and misses in
+   * {@code metrics}.
+   *
+   * @param capacity Must be positive.
+   * @param metrics Must be non-null.
+   */
+  public QueryResultCache(int capacity, SchedulerMetrics metrics) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics cannot be null");
+    }
+
+    this.metrics = metrics;
+    this.answers = new LinkedHashMap<Key, V>(16, 0.75f, /*accessOrder=*/true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the answer to {@code request} against calendar version {@code calendarVersion}, using
+   * {@code compute} to work it out if it isn't cached. The lock isn't held while computing, so two
+   * threads asking for the same new answer may both compute it.
+   *
+   * @param variant Tells apart different kinds of answers to the same request.
+   */
+  public V get(
+      long calendarVersion, String variant, MeetingRequest request, Supplier<V> compute) {
+    Key key = new Key(calendarVersion, variant, request);
+    synchronized (this) {
+      if (calendarVersion > version) {
+        // Everything cached so far is for an older calendar.
+        answers.clear();
+        version = calendarVersion;
+      }
+      V answer = answers.get(key);
+      if (answer != null) {
+        metrics.recordCacheHit();
+        return answer;
+      }
+    }
+
+    metrics.recordCacheMiss();
+    V answer = compute.get();
+    synchronized (this) {
+      if (calendarVersion == version) {
+        answers.put(key, answer);
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Returns the number of cached answers.
+   */
+  public synchronized int size() {
+    return answers.size();
+  }
+
+  /** What makes two requests the same. */
+  private static final class Key {
+    private final long calendarVersion;
+    private final String variant;
+    private final Set<String> attendees;
+    private final Set<String> optionalAttendees;
+    private final long duration;
+    private final TimeRange window;
+
+    private Key(long calendarVersion, String variant, MeetingRequest request) {
+      this.calendarVersion = calendarVersion;
+      this.variant = variant;
+      this.attendees = new HashSet<>(request.getAttendees());
+      this.optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.window = request.getWindow();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return calendarVersion == that.calendarVersion
+          && duration == that.duration
+          && variant.equals(that.variant)
+          && window.equals(that.window)
+          && attendees.equals(that.attendees)
+          && optionalAttendees.equals(that.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = Long.hashCode(calendarVersion);
+      hash = 31 * hash + variant.hashCode();
+      hash = 31 * hash + attendees.hashCode();
+      hash = 31 * hash + optionalAttendees.hashCode();
+      hash = 31 * hash + Long.hashCode(duration);
+      return 31 * hash + window.hashCode();
+    }
+  }
+}
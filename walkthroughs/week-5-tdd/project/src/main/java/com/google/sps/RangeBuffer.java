@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable list of time ranges, each packed into a {@code long} with
+ * {@link TimeRange#pack(int, int)}. Adding a range doesn't allocate once the buffer has grown to
+ * fit, so a thread can answer query after query into the same buffer and only create
+ * {@code TimeRange} objects, if at all, when the answer leaves the scheduler. Buffers are not safe
+ * to share between threads.
+ */
+public final class RangeBuffer {
+  private long[] ranges;
+  private int size;
+
+  /**
+   * Creates an empty buffer.
+   */
+  public RangeBuffer() {
+    this.ranges = new long[16];
+  }
+
+  /**
+   * Returns the number of ranges in the buffer.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the range at {@code index}, packed.
+   */
+  public long get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    return ranges[index];
+  }
+
+  /**
+   * Returns the start of the range at {@code index}.
+   */
+  public int start(int index) {
+    return TimeRange.packedStart(get(index));
+  }
+
+  /**
+   * Returns the duration of the range at {@code index}.
+   */
+  public int duration(int index) {
+    return TimeRange.packedDuration(get(index));
+  }
+
+  /**
+   * Adds the range that starts at {@code start} and lasts {@code duration} minutes.
+   */
+  public void add(int start, int duration) {
+    if (size == ranges.length) {
+      ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+    }
+    ranges[size++] = TimeRange.pack(start, duration);
+  }
+
+  /**
+   * Removes every range, keeping the memory for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Returns a new, modifiable list with a {@code TimeRange} for every range, in order.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(TimeRange.fromPacked(ranges[i]));
+    }
+    return list;
+  }
+}
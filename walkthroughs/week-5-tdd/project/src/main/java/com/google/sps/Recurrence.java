@@ -0,0 +1,159 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * How an event repeats: a fixed number of occurrences, each a fixed number of minutes after the
+ * previous one. Occurrences are worked out on demand, so a query only pays for the ones inside
+ * its window, no matter how many there are. Recurrences are considered read-only.
+ */
+public final class Recurrence {
+  private static final int MINUTES_PER_WEEK = 7 * TimeRange.MINUTES_PER_DAY;
+
+  // The number of minutes from the start of one occurrence to the start of the next.
+  private final int interval;
+
+  // The number of occurrences, including the first one.
+  private final int count;
+
+  /**
+   * Creates a new recurrence.
+   *
+   * @param interval The number of minutes between the starts of two occurrences. Must be positive.
+   * @param count The number of occurrences, including the first one. Must be positive.
+   */
+  public Recurrence(int interval, int count) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+    if (count <= 0) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+
+    this.interval = interval;
+    this.count = count;
+  }
+
+  /**
+   * Returns a recurrence that happens every day, {@code count} times.
+   */
+  public static Recurrence daily(int count) {
+    return new Recurrence(TimeRange.MINUTES_PER_DAY, count);
+  }
+
+  /**
+   * Returns a recurrence that happens every week, {@code count} times.
+   */
+  public static Recurrence weekly(int count) {
+    return new Recurrence(MINUTES_PER_WEEK, count);
+  }
+
+  /**
+   * Returns the number of minutes between the starts of two occurrences.
+   */
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the number of occurrences, including the first one.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the range from the start of the first occurrence to the end of the last one.
+   *
+   * @param first The first occurrence.
+   * @throws IllegalArgumentException If the last occurrence ends after the latest representable
+   *     time.
+   */
+  public TimeRange getSpan(TimeRange first) {
+    long end = (long) first.end() + (long) (count - 1) * interval;
+    if (end > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The last occurrence ends too late");
+    }
+    return TimeRange.fromStartEnd(first.start(), (int) end, /*inclusive=*/false);
+  }
+
+  /**
+   * Returns the occurrences that share at least one minute with {@code window}, in order. They are
+   * worked out one at a time as the iterator is advanced, starting from the first one that can
+   * overlap the window.
+   *
+   * @param first The first occurrence. Occurrences without any duration never overlap anything.
+   */
+  public Iterator<TimeRange> occurrences(TimeRange first, TimeRange window) {
+    if (first.duration() <= 0) {
+      return new Occurrences(first, 0, 0);
+    }
+    // The first occurrence k whose end, first.end() + k * interval, is after the window starts
+    long skipped = Math.floorDiv((long) window.start() - first.end(), interval) + 1;
+    long from = Math.max(0, Math.min(skipped, count));
+    // The first occurrence k whose start, first.start() + k * interval, is at or after its end
+    long after = Math.floorDiv((long) window.end() - first.start() - 1, interval) + 1;
+    long to = Math.max(from, Math.min(after, count));
+    return new Occurrences(first, (int) from, (int) to);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Recurrence
+        && interval == ((Recurrence) other).interval
+        && count == ((Recurrence) other).count;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * interval + count;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Recurrence: every %d minutes, %d times", interval, count);
+  }
+
+  /** Occurrences {@code from} (inclusive) to {@code to} (exclusive) of a recurrence. */
+  private final class Occurrences implements Iterator<TimeRange> {
+    private final TimeRange first;
+    private final int to;
+    private int next;
+
+    private Occurrences(TimeRange first, int from, int to) {
+      this.first = first;
+      this.next = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < to;
+    }
+
+    @Override
+    public TimeRange next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int start = first.start() + next * interval;
+      next++;
+      return TimeRange.fromStartDuration(start, first.duration());
+    }
+  }
+}
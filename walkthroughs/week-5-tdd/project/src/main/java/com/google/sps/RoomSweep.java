@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the times that the mandatory attendees and a room are free together, for every room at
+ * once. The boundaries of the attendees' busy times and of every room's bookings are sorted into
+ * one list and swept in a single pass. A room is usable while neither it nor any mandatory
+ * attendee is busy, and each stretch of usability long enough for the meeting becomes a slot.
+ */
+final class RoomSweep {
+  // Sweep points pack the time into the high 32 bits, then whether a busy range starts or ends
+  // there, then which timeline it belongs to: 0 for the mandatory attendees, i + 1 for room i.
+  private static final int KIND_SHIFT = 31;
+  private static final long SOURCE_MASK = (1L << KIND_SHIFT) - 1;
+  private static final int END = 0;
+  private static final int START = 1;
+
+  // A room that isn't usable right now.
+  private static final int NOT_USABLE = Integer.MIN_VALUE;
+
+  private RoomSweep() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the times, ordered by start and then by room, that each room in {@code rooms} and
+   * every mandatory attendee are free for at least {@code duration} minutes within
+   * {@code window}.
+   *
+   * @param mandatory When at least one mandatory attendee is busy.
+   * @param rooms The rooms to consider.
+   * @param roomTimelines When each room is booked, in the same order as {@code rooms}.
+   */
+  static List<RoomSlot> slots(BusyTimeline mandatory, List<Room> rooms,
+      List<BusyTimeline> roomTimelines, TimeRange window, long duration) {
+    int count = mandatory.size();
+    for (BusyTimeline timeline : roomTimelines) {
+      count += timeline.size();
+    }
+    long[] points = new long[2 * count];
+    int length = addPoints(mandatory, 0, points, 0);
+    for (int room = 0; room < rooms.size(); room++) {
+      length = addPoints(roomTimelines.get(room), room + 1, points, length);
+    }
+    Arrays.sort(points, 0, length);
+
+    List<long[]> found = new ArrayList<>();
+    // busy[0] is the mandatory attendees; busy[i + 1] is room i.
+    boolean[] busy = new boolean[rooms.size() + 1];
+    int[] usableSince = new int[rooms.size()];
+    Arrays.fill(usableSince, NOT_USABLE);
+
+    int i = 0;
+    int time = window.start();
+    while (time < window.end()) {
+      // Apply everything that happens up to now. Busy ranges within a timeline never overlap, so
+      // a flag per timeline is enough.
+      while (i < length && time(points[i]) <= time) {
+        busy[source(points[i])] = kind(points[i]) == START;
+        i++;
+      }
+      for (int room = 0; room < rooms.size(); room++) {
+        boolean usable = !busy[0] && !busy[room + 1];
+        if (usable && usableSince[room] == NOT_USABLE) {
+          usableSince[room] = time;
+        } else if (!usable && usableSince[room] != NOT_USABLE) {
+          addSlot(found, room, usableSince[room], time, duration);
+          usableSince[room] = NOT_USABLE;
+        }
+      }
+      time = i < length ? Math.min(time(points[i]), window.end()) : window.end();
+    }
+    for (int room = 0; room < rooms.size(); room++) {
+      if (usableSince[room] != NOT_USABLE) {
+        addSlot(found, room, usableSince[room], window.end(), duration);
+      }
+    }
+
+    // Slots were found as they closed; list them by start and then in the order of the rooms.
+    found.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[2], b[2]));
+    List<RoomSlot> slots = new ArrayList<>(found.size());
+    for (long[] slot : found) {
+      TimeRange when = TimeRange.fromStartEnd((int) slot[0], (int) slot[1], /*inclusive=*/false);
+      slots.add(new RoomSlot(when, rooms.get((int) slot[2])));
+    }
+    return slots;
+  }
+
+  /** Adds {@code {start, end, room}} to {@code found} if the meeting fits in it. */
+  private static void addSlot(List<long[]> found, int room, int start, int end, long duration) {
+    if ((long) end - start >= Math.max(duration, 1)) {
+      found.add(new long[] {start, end, room});
+    }
+  }
+
+  private static int addPoints(BusyTimeline timeline, int source, long[] points, int length) {
+    for (int i = 0; i < timeline.size(); i++) {
+      points[length++] = point(timeline.start(i), START, source);
+      points[length++] = point(timeline.end(i), END, source);
+    }
+    return length;
+  }
+
+  private static long point(int time, int kind, int source) {
+    return ((long) time << 32) | ((long) kind << KIND_SHIFT) | source;
+  }
+
+  private static int time(long point) {
+    return (int) (point >> 32);
+  }
+
+  private static int kind(long point) {
+    return (int) ((point >>> KIND_SHIFT) & 1);
+  }
+
+  private static int source(long point) {
+    return (int) (point & SOURCE_MASK);
+  }
+}
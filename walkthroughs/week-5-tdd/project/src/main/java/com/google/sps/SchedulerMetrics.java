@@ -0,0 +1,150 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how much work meeting queries do, so that slow responses can be matched up with the shape
+ * of the calendar they were run against. {@code FindMeetingQuery} records every query; servlets
+ * add what they measure around it, like the latency and allocations of whole requests. Metrics are
+ * safe to record into from several threads.
+ */
+public final class SchedulerMetrics {
+  private static final SchedulerMetrics DEFAULT = new SchedulerMetrics();
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final Histogram queryNanos = new Histogram();
+  private final Histogram requestNanos = new Histogram();
+  private final Histogram requestAllocatedBytes = new Histogram();
+  private final LongAdder eventsScanned = new LongAdder();
+  private final LongAdder eventsMatched = new LongAdder();
+  private final LongAdder candidateSlots = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+
+  /**
+   * Returns the metrics that queries and servlets record into unless told otherwise.
+   */
+  public static SchedulerMetrics getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Records one query.
+   *
+   * @param nanos How long the query took.
+   * @param scanned How many events, or busy ranges from an index, the query looked at.
+   * @param matched How many of those involved the requested attendees.
+   * @param slots How many possible meeting times the query returned.
+   */
+  public void recordQuery(long nanos, long scanned, long matched, long slots) {
+    queryNanos.record(nanos);
+    eventsScanned.add(scanned);
+    eventsMatched.add(matched);
+    candidateSlots.add(slots);
+  }
+
+  /**
+   * Records one request to a servlet.
+   *
+   * @param nanos How long the request took.
+   * @param allocatedBytes Roughly how much memory the request allocated, or a negative number if
+   *     the JVM can't tell.
+   */
+  public void recordRequest(long nanos, long allocatedBytes) {
+    requestNanos.record(nanos);
+    if (allocatedBytes >= 0) {
+      requestAllocatedBytes.record(allocatedBytes);
+    }
+  }
+
+  /**
+   * Records that a query was answered from a {@code QueryResultCache}.
+   */
+  public void recordCacheHit() {
+    cacheHits.increment();
+  }
+
+  /**
+   * Records that a query wasn't in a {@code QueryResultCache} and had to be run.
+   */
+  public void recordCacheMiss() {
+    cacheMisses.increment();
+  }
+
+  /**
+   * Returns how many bytes the current thread has allocated so far, or -1 if the JVM can't tell.
+   * The difference between two calls estimates what the code in between allocated.
+   */
+  public static long currentThreadAllocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+    if (!hotspotThreads.isThreadAllocatedMemorySupported()
+        || !hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return hotspotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Returns the current values of every metric, as nested maps that can be written out as JSON.
+   * Latencies are in microseconds.
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> queries = new LinkedHashMap<>();
+    queries.put("count", queryNanos.getCount());
+    queries.put("latencyMicros", describe(queryNanos, 1000));
+    queries.put("eventsScanned", eventsScanned.sum());
+    queries.put("eventsMatched", eventsMatched.sum());
+    queries.put("candidateSlots", candidateSlots.sum());
+
+    Map<String, Object> requests = new LinkedHashMap<>();
+    requests.put("count", requestNanos.getCount());
+    requests.put("latencyMicros", describe(requestNanos, 1000));
+    requests.put("allocatedBytes", describe(requestAllocatedBytes, 1));
+
+    Map<String, Object> cache = new LinkedHashMap<>();
+    cache.put("hits", cacheHits.sum());
+    cache.put("misses", cacheMisses.sum());
+
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("queries", queries);
+    metrics.put("requests", requests);
+    metrics.put("cache", cache);
+    return metrics;
+  }
+
+  private static Map<String, Object> describe(Histogram histogram, long unit) {
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("mean", histogram.getMean() / unit);
+    for (double percentile : PERCENTILES) {
+      String name = "p" + (percentile == (long) percentile
+          ? Long.toString((long) percentile)
+          : Double.toString(percentile).replace('.', '_'));
+      description.put(name, histogram.getPercentile(percentile) / unit);
+    }
+    description.put("max", histogram.getMax() / unit);
+    return description;
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ranks possible meeting times so that a query can return the few best ones instead of every free
+ * gap. Each candidate gets a cost, and lower is better:
+ *
+ * <ul>
+ *   <li>one point per minute of the meeting outside the preferred hours of the day,
+ *   <li>one point per minute of buffer missing between the meeting and the busy time next to it,
+ *   <li>one point per minute of free time left over next to the meeting that is too short to be
+ *       useful for anything else.
+ * </ul>
+ *
+ * <p>Candidates start at the edges of each free gap and at every multiple of the step in between.
+ * At most {@code MAX_CANDIDATES} of them are scored, earliest first. Scorers are considered
+ * read-only.
+ */
+public final class SlotScorer {
+  /** Prefers 9:00 to 17:00, a 15 minute buffer, and leftover gaps of at least 30 minutes. */
+  public static final SlotScorer DEFAULT = new SlotScorer(9 * 60, 17 * 60, 15, 30, 15);
+
+  // Bounds the work for a very long window or a tiny step. A year at the default step is about
+  // 35,000 candidates.
+  private static final int MAX_CANDIDATES = 100_000;
+
+  private final int preferredStart;
+  private final int preferredEnd;
+  private final int buffer;
+  private final int minUsefulGap;
+  private final int step;
+
+  /**
+   * Creates a new scorer.
+   *
+   * @param preferredStart The minute of the day that preferred hours start at.
+   * @param preferredEnd The minute of the day that preferred hours end at, exclusive. Must not be
+   *     before {@code preferredStart}.
+   * @param buffer How many free minutes a meeting should have before and after it.
+   * @param minUsefulGap Leftover free time shorter than this many minutes counts as wasted.
+   * @param step How many minutes apart candidate start times are within a free gap. Must be
+   *     positive.
+   */
+  public SlotScorer(int preferredStart, int preferredEnd, int buffer, int minUsefulGap, int step) {
+    if (preferredStart < 0 || preferredEnd > TimeRange.MINUTES_PER_DAY
+        || preferredStart > preferredEnd) {
+      throw new IllegalArgumentException("Preferred hours must be within one day");
+    }
+    if (buffer < 0 || minUsefulGap < 0) {
+      throw new IllegalArgumentException("buffer and minUsefulGap cannot be negative");
+    }
+    if (step <= 0) {
+      throw new IllegalArgumentException("step must be positive");
+    }
+
+    this.preferredStart = preferredStart;
+    this.preferredEnd = preferredEnd;
+    this.buffer = buffer;
+    this.minUsefulGap = minUsefulGap;
+    this.step = step;
+  }
+
+  /**
+   * Returns up to {@code limit} meeting times of length {@code duration} within
+   * {@code freeTimes}, cheapest first. Times with the same cost are ordered by start. Only
+   * {@code limit} candidates are kept at any time, so the cost of ranking doesn't grow with the
+   * size of the answer.
+   *
+   * @param freeTimes The free gaps, as returned by a query, in start order.
+   * @param window The window that the gaps were found in. Gaps that touch its edges don't need a
+   *     buffer on that side.
+   */
+  public List<TimeRange> topSlots(
+      Collection<TimeRange> freeTimes, TimeRange window, long duration, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit cannot be negative");
+    }
+    if (limit == 0) {
+      return new ArrayList<>();
+    }
+
+    // The worst of the kept candidates is at the head, so it can be replaced by a better one. The
+    // queue grows as needed, so a large limit doesn't cost anything up front.
+    PriorityQueue<Slot> best =
+        new PriorityQueue<>(Math.min(limit, 16), Collections.reverseOrder(Slot.ORDER));
+    int candidates = 0;
+    for (TimeRange gap : freeTimes) {
+      long lastStart = (long) gap.end() - duration;
+      for (long start = gap.start(); start <= lastStart; start = nextStart(start, lastStart)) {
+        if (candidates++ == MAX_CANDIDATES) {
+          return sorted(best);
+        }
+        long cost = cost(gap, window, start, duration);
+        if (best.size() < limit) {
+          best.add(new Slot((int) start, (int) duration, cost));
+        } else if (isBetter(cost, start, best.peek())) {
+          best.poll();
+          best.add(new Slot((int) start, (int) duration, cost));
+        }
+      }
+    }
+    return sorted(best);
+  }
+
+  /** Checks if a candidate is better than {@code slot}, the same way as {@code Slot.ORDER}. */
+  private static boolean isBetter(long cost, long start, Slot slot) {
+    return cost < slot.cost || (cost == slot.cost && start < slot.start);
+  }
+
+  private static List<TimeRange> sorted(PriorityQueue<Slot> best) {
+    List<Slot> slots = new ArrayList<>(best);
+    Collections.sort(slots, Slot.ORDER);
+    List<TimeRange> ranked = new ArrayList<>(slots.size());
+    for (Slot slot : slots) {
+      ranked.add(TimeRange.fromStartDuration(slot.start, slot.duration));
+    }
+    return ranked;
+  }
+
+  /** Returns the next candidate start: the next multiple of the step, or the last start. */
+  private long nextStart(long start, long lastStart) {
+    if (start == lastStart) {
+      return lastStart + 1;
+    }
+    long next = Math.floorDiv(start, step) * step + step;
+    return Math.min(next, lastStart);
+  }
+
+  private long cost(TimeRange gap, TimeRange window, long start, long duration) {
+    long end = start + duration;
+    long before = start - gap.start();
+    long after = gap.end() - end;
+
+    long cost = duration - minutesInPreferredHours(start, end);
+    if (gap.start() != window.start()) {
+      cost += Math.max(0, buffer - before);
+    }
+    if (gap.end() != window.end()) {
+      cost += Math.max(0, buffer - after);
+    }
+    if (before > 0 && before < minUsefulGap) {
+      cost += before;
+    }
+    if (after > 0 && after < minUsefulGap) {
+      cost += after;
+    }
+    return cost;
+  }
+
+  private long minutesInPreferredHours(long start, long end) {
+    long minutes = 0;
+    long day = Math.floorDiv(start, TimeRange.MINUTES_PER_DAY) * TimeRange.MINUTES_PER_DAY;
+    for (; day < end; day += TimeRange.MINUTES_PER_DAY) {
+      long overlapStart = Math.max(start, day + preferredStart);
+      long overlapEnd = Math.min(end, day + preferredEnd);
+      minutes += Math.max(0, overlapEnd - overlapStart);
+    }
+    return minutes;
+  }
+
+  /** A candidate meeting time and its cost. */
+  private static final class Slot {
+    private static final Comparator<Slot> ORDER =
+        Comparator.<Slot>comparingLong(slot -> slot.cost).thenComparingInt(slot -> slot.start);
+
+    private final int start;
+    private final int duration;
+    private final long cost;
+
+    private Slot(int start, int duration, long cost) {
+      this.start = start;
+      this.duration = duration;
+      this.cost = cost;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds free time by sorting the busy ranges by start time and walking them in order, recording
+ * each gap between the end of one busy stretch and the start of the next.
+ */
+public final class SortedFreeTimeEngine implements FreeTimeEngine {
+  @Override
+  public Collection<TimeRange> findFreeTimes(
+      List<TimeRange> eventTimes, TimeRange window, long duration) {
+    Collections.sort(eventTimes, TimeRange.ORDER_BY_START);
+    int start = window.start();
+    ArrayList<TimeRange> options = new ArrayList<TimeRange>();
+    for (TimeRange eventTime : eventTimes) {
+      // An event without any duration doesn't keep anyone busy
+      if (eventTime.duration() <= 0) {
+        continue;
+      }
+      // Everything from here on starts after the window
+      if (eventTime.start() >= window.end()) {
+        break;
+      }
+      // Checks if not overlapping with the previous event
+      if (eventTime.start() > start) {
+        // Adds gap between meeting times if it exceeds the requested duration
+        if (eventTime.start() - start >= duration) {
+          options.add(TimeRange.fromStartEnd(start, eventTime.start(), /*inclusive=*/false));
+        }
+        start = eventTime.end();
+      } else if (eventTime.end() > start) {
+        // Alters start time if event ends after a previous event
+        start = eventTime.end();
+      }
+    }
+    // Adds the gap between the last event and the end of the window
+    if (start < window.end() && window.end() - start >= duration) {
+      options.add(TimeRange.fromStartEnd(start, window.end(), /*inclusive=*/false));
+    }
+    return options;
+  }
+}
@@ -14,17 +14,25 @@
 
 package com.google.sps;
 
+import java.time.Instant;
 import java.util.Comparator;
 
 /**
  * Class representing a span of time, enforcing properties (e.g. start comes before end) and
  * providing methods to make ranges easier to work with (e.g. {@code overlaps}).
+ *
+ * <p>Times are whole minutes. Within a single day they count from midnight; ranges over several
+ * days count minutes since the Unix epoch in UTC instead (see {@code fromInstants}), which an
+ * {@code int} can hold for thousands of years. Time zones only matter when converting to and from
+ * instants, so ranges from different time zones can be compared directly.
  */
 public final class TimeRange {
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -75,6 +83,13 @@ public final class TimeRange {
     return start + duration;
   }
 
+  /**
+   * Returns this range packed into a {@code long}. See {@link #pack(int, int)}.
+   */
+  public long toPacked() {
+    return pack(start, duration);
+  }
+
   /**
    * Checks if two ranges overlap. This means that at least some part of one range falls within the
    * bounds of another range.
@@ -183,4 +198,57 @@ public final class TimeRange {
   public static TimeRange fromStartDuration(int start, int duration) {
     return new TimeRange(start, duration);
   }
+
+  /**
+   * Packs the range starting at {@code start} with a duration of {@code duration} into one
+   * {@code long}: the start in the high 32 bits and the duration in the low 32 bits. Packed ranges
+   * can be stored in primitive arrays instead of as objects, and ranges without negative
+   * durations sort by start and then by duration when compared as {@code long}s.
+   */
+  public static long pack(int start, int duration) {
+    return ((long) start << 32) | (duration & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the start of a range packed with {@link #pack(int, int)}.
+   */
+  public static int packedStart(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  /**
+   * Returns the duration of a range packed with {@link #pack(int, int)}.
+   */
+  public static int packedDuration(long packed) {
+    return (int) packed;
+  }
+
+  /**
+   * Returns the end of a range packed with {@link #pack(int, int)}.
+   */
+  public static int packedEnd(long packed) {
+    return packedStart(packed) + packedDuration(packed);
+  }
+
+  /**
+   * Creates a {@code TimeRange} from a range packed with {@link #pack(int, int)}.
+   */
+  public static TimeRange fromPacked(long packed) {
+    return new TimeRange(packedStart(packed), packedDuration(packed));
+  }
+
+  /**
+   * Creates a {@code TimeRange} from {@code start} (inclusive) to {@code end} (exclusive), counted
+   * in minutes since the Unix epoch. Seconds are truncated down to the start of their minute.
+   */
+  public static TimeRange fromInstants(Instant start, Instant end) {
+    return fromStartEnd(getEpochMinutes(start), getEpochMinutes(end), false);
+  }
+
+  /**
+   * Returns the number of whole minutes between the Unix epoch and {@code instant}.
+   */
+  public static int getEpochMinutes(Instant instant) {
+    return Math.toIntExact(Math.floorDiv(instant.getEpochSecond(), 60L));
+  }
 }
@@ -0,0 +1,259 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.SchedulerMetrics;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Same as {@code /query}, but never blocks a container thread. The request body is read with a
+ * {@code ReadListener} as it arrives, the query runs on a bounded pool of worker threads, and the
+ * answer is written with a {@code WriteListener} as the client takes it. When every worker is busy
+ * and the queue is full, requests are turned away with 503 instead of piling up.
+ */
+@WebServlet(urlPatterns = "/query-async", asyncSupported = true)
+public class AsyncQueryServlet extends HttpServlet {
+  private static final Gson GSON = JsonAdapters.GSON;
+
+  // Requests bigger than this are turned away; a meeting request is a few hundred bytes.
+  private static final int MAX_BODY_BYTES = 1 << 20;
+
+  // How many queries may wait for a worker before new ones are turned away.
+  private static final int QUEUE_CAPACITY = 256;
+
+  private static final long TIMEOUT_MILLIS = 30_000;
+
+  private ThreadPoolExecutor workers;
+
+  @Override
+  public void init() {
+    int threads = Runtime.getRuntime().availableProcessors();
+    AtomicInteger count = new AtomicInteger();
+    workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), runnable -> {
+          Thread thread = new Thread(runnable, "query-worker-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @Override
+  public void destroy() {
+    workers.shutdown();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    AsyncContext context = request.startAsync();
+    context.setTimeout(TIMEOUT_MILLIS);
+    context.addListener(new TimeoutListener());
+    ServletInputStream input = request.getInputStream();
+    input.setReadListener(new BodyReader(context, input, System.nanoTime()));
+  }
+
+  /** Collects the request body as it arrives, then hands the query to a worker. */
+  private final class BodyReader implements ReadListener {
+    private final AsyncContext context;
+    private final ServletInputStream input;
+    private final long started;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[4096];
+    private boolean tooLarge;
+
+    private BodyReader(AsyncContext context, ServletInputStream input, long started) {
+      this.context = context;
+      this.input = input;
+      this.started = started;
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+      // Only read while it won't block; the container calls back when there is more.
+      while (!tooLarge && input.isReady() && !input.isFinished()) {
+        int read = input.read(buffer);
+        if (read < 0) {
+          return;
+        }
+        body.write(buffer, 0, read);
+        if (body.size() > MAX_BODY_BYTES) {
+          tooLarge = true;
+          sendError(
+              context, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request is too large");
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void onAllDataRead() {
+      if (tooLarge) {
+        return;
+      }
+      try {
+        workers.execute(this::answer);
+      } catch (RejectedExecutionException e) {
+        HttpServletResponse response = (HttpServletResponse) context.getResponse();
+        response.setHeader("Retry-After", "1");
+        sendError(context, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many queries");
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      complete(context);
+    }
+
+    private void answer() {
+      // Nothing may escape a worker: the thread would die and the request would never complete.
+      MeetingRequest meetingRequest;
+      try {
+        meetingRequest = GSON.fromJson(
+            new String(body.toByteArray(), StandardCharsets.UTF_8), MeetingRequest.class);
+      } catch (RuntimeException e) {
+        sendError(context, HttpServletResponse.SC_BAD_REQUEST, "Invalid meeting request");
+        return;
+      }
+      if (meetingRequest == null) {
+        sendError(context, HttpServletResponse.SC_BAD_REQUEST, "Missing meeting request");
+        return;
+      }
+
+      byte[] json;
+      try {
+        Collection<TimeRange> answer = new FindMeetingQuery()
+            .query(Events.CALENDAR.getSnapshot().getIndex(), meetingRequest);
+        json = (GSON.toJson(answer) + "\n").getBytes(StandardCharsets.UTF_8);
+      } catch (RuntimeException e) {
+        sendError(context, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Query failed");
+        return;
+      }
+
+      try {
+        HttpServletResponse response = (HttpServletResponse) context.getResponse();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(json.length);
+        ServletOutputStream output = response.getOutputStream();
+        output.setWriteListener(new BodyWriter(context, output, json, started));
+      } catch (IOException | RuntimeException e) {
+        complete(context);
+      }
+    }
+  }
+
+  /** Answers requests that the worker pool didn't finish in time. */
+  private static final class TimeoutListener implements AsyncListener {
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      sendError(event.getAsyncContext(), HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          "Query timed out");
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      complete(event.getAsyncContext());
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+  }
+
+  /** Sends an error status, if the response is still open, and completes the request. */
+  private static void sendError(AsyncContext context, int status, String message) {
+    try {
+      ((HttpServletResponse) context.getResponse()).sendError(status, message);
+    } catch (IOException | IllegalStateException e) {
+      // The client has gone away, or the response was already committed or completed; there is
+      // nobody to tell.
+    } finally {
+      complete(context);
+    }
+  }
+
+  /** Completes the request unless it has already been completed, e.g. by a timeout. */
+  private static void complete(AsyncContext context) {
+    try {
+      context.complete();
+    } catch (IllegalStateException e) {
+      // Already completed.
+    }
+  }
+
+  /** Writes the answer as fast as the client takes it. */
+  private static final class BodyWriter implements WriteListener {
+    private static final int CHUNK_BYTES = 8192;
+
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private final byte[] body;
+    private final long started;
+    private int written;
+
+    private BodyWriter(AsyncContext context, ServletOutputStream output, byte[] body,
+        long started) {
+      this.context = context;
+      this.output = output;
+      this.body = body;
+      this.started = started;
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+      // Only write while it won't block; the container calls back when there is room again.
+      while (output.isReady()) {
+        if (written == body.length) {
+          SchedulerMetrics.getDefault().recordRequest(System.nanoTime() - started, -1);
+          context.complete();
+          return;
+        }
+        int length = Math.min(CHUNK_BYTES, body.length - written);
+        output.write(body, written, length);
+        written += length;
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      context.complete();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A response body that is encoded once, up front, in both plain and gzipped form, along with a
+ * strong ETag for each. Sending it is a copy of the bytes, or just a 304 if the client already has
+ * them. Responses are considered read-only.
+ */
+final class EncodedResponse {
+  private final String contentType;
+  private final byte[] body;
+  private final byte[] gzippedBody;
+  private final String etag;
+  private final String gzippedEtag;
+
+  private EncodedResponse(String contentType, byte[] body) throws IOException {
+    this.contentType = contentType;
+    this.body = body;
+    this.gzippedBody = gzip(body);
+    String hash = sha256(body);
+    // The two encodings are different bytes, so they need different strong ETags.
+    this.etag = '"' + hash + '"';
+    this.gzippedEtag = '"' + hash + "-gzip\"";
+  }
+
+  /**
+   * Encodes {@code json} as a UTF-8 response with the {@code application/json} content type.
+   */
+  static EncodedResponse ofJson(String json) {
+    try {
+      return new EncodedResponse(
+          "application/json;charset=UTF-8", json.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      // Only in-memory streams are involved, so this can't happen.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Sends this response, gzipped if the client accepts it. If the client's {@code If-None-Match}
+   * header already names this response, only a 304 is sent.
+   */
+  void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    boolean useGzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String sentEtag = useGzip ? gzippedEtag : etag;
+
+    response.setHeader("Vary", "Accept-Encoding");
+    response.setHeader("ETag", sentEtag);
+    if (matches(request.getHeader("If-None-Match"))) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] sentBody = useGzip ? gzippedBody : body;
+    response.setContentType(contentType);
+    if (useGzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(sentBody.length);
+    response.getOutputStream().write(sentBody);
+  }
+
+  /**
+   * Checks if an {@code If-None-Match} header names either encoding of this response.
+   */
+  private boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      // Weak comparison is what If-None-Match calls for, so ignore any W/ prefix.
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag) || tag.equals(gzippedEtag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      // "gzip;q=0" means the client explicitly doesn't want gzip.
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim().replace(" ", "");
+        if (parameter.matches("q=0(\\.0*)?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarService;
+import com.google.sps.Event;
+import com.google.sps.Events;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the calendar. POST adds the event in the request body and DELETE removes it. The body
+ * has the same JSON form as the events returned by {@code /get-events}. Both respond with the new
+ * version of the calendar.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  private static final Gson GSON = new Gson();
+
+  // Limits on recurrences sent by clients. Queries expand every occurrence inside their window, so
+  // without these a single event could cost one time range per minute of every query.
+  private static final int MIN_RECURRENCE_INTERVAL = 15;
+  private static final int MAX_RECURRENCE_COUNT = 1000;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    CalendarService.Snapshot snapshot = Events.CALENDAR.addEvent(event);
+    response.setStatus(HttpServletResponse.SC_CREATED);
+    sendVersion(response, snapshot.getVersion());
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    CalendarService.Snapshot snapshot = Events.CALENDAR.removeEvent(event);
+    if (snapshot == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such event");
+      return;
+    }
+    sendVersion(response, snapshot.getVersion());
+  }
+
+  /**
+   * Returns the event in the body of {@code request}, or sends an error and returns {@code null}
+   * if the body isn't a valid event.
+   */
+  private static Event readEvent(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    try {
+      EventJson json = GSON.fromJson(request.getReader(), EventJson.class);
+      if (json == null || json.when == null || json.attendees == null) {
+        throw new IllegalArgumentException("An event needs a title, a time and attendees");
+      }
+      if (json.when.duration() < 0
+          || (long) json.when.start() + json.when.duration() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Invalid event time");
+      }
+      // Going through the constructors checks the fields that Gson doesn't.
+      Recurrence recurrence = json.recurrence == null
+          ? null
+          : new Recurrence(json.recurrence.getInterval(), json.recurrence.getCount());
+      if (recurrence != null && recurrence.getInterval() < MIN_RECURRENCE_INTERVAL) {
+        throw new IllegalArgumentException(
+            "Occurrences must be at least " + MIN_RECURRENCE_INTERVAL + " minutes apart");
+      }
+      if (recurrence != null && recurrence.getCount() > MAX_RECURRENCE_COUNT) {
+        throw new IllegalArgumentException(
+            "An event can't recur more than " + MAX_RECURRENCE_COUNT + " times");
+      }
+      return new Event(json.title,
+          TimeRange.fromStartDuration(json.when.start(), json.when.duration()), json.attendees,
+          recurrence);
+    } catch (JsonParseException | IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return null;
+    }
+  }
+
+  private static void sendVersion(HttpServletResponse response, long version) throws IOException {
+    response.setContentType("application/json");
+    response.getWriter().println("{\"version\":" + version + "}");
+  }
+
+  /** The JSON form of an event. */
+  private static final class EventJson {
+    private String title;
+    private TimeRange when;
+    private List<String> attendees;
+    private Recurrence recurrence;
+  }
+}
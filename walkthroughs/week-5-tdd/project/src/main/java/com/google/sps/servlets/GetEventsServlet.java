@@ -14,23 +14,139 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.CalendarService;
+import com.google.sps.Event;
 import com.google.sps.Events;
+import com.google.sps.TimeRange;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns the known events as a JSON array. The full array is encoded once per version of the
+ * calendar and served from memory, with ETag and gzip support. Optional parameters narrow down the
+ * response, in which case the matching events are written to the response one at a time:
+ *
+ * <ul>
+ *   <li>{@code start} and {@code end}: only events that overlap {@code [start, end)}, in minutes.
+ *   <li>{@code offset}: skip this many of the matching events.
+ *   <li>{@code limit}: return at most this many of the matching events.
+ * </ul>
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final Gson GSON = new Gson();
+
+  private static final String[] PARAMETERS = {"start", "end", "offset", "limit"};
+
+  // The full response for the most recently served version of the calendar.
+  private volatile EncodedCatalogue allEvents;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    CalendarService.Snapshot snapshot = Events.CALENDAR.getSnapshot();
+    if (!hasAnyParameter(request)) {
+      getAllEvents(snapshot).send(request, response);
+      return;
+    }
+
+    int start;
+    int end;
+    int offset;
+    int limit;
+    try {
+      start = getIntParameter(request, "start", Integer.MIN_VALUE);
+      end = getIntParameter(request, "end", Integer.MAX_VALUE);
+      offset = getIntParameter(request, "offset", 0);
+      limit = getIntParameter(request, "limit", Integer.MAX_VALUE);
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (start > end || offset < 0 || limit < 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid event range");
+      return;
+    }
 
-    // Send the JSON back as the response
+    // Send the JSON back as the response, one event at a time
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    JsonWriter writer = GSON.newJsonWriter(response.getWriter());
+    writer.beginArray();
+    int skipped = 0;
+    int written = 0;
+    for (Event event : snapshot.getEvents()) {
+      if (written == limit) {
+        break;
+      }
+      // Recurring events are matched by the span from their first to their last occurrence
+      TimeRange when = event.getSpan();
+      if (when.end() <= start || when.start() >= end) {
+        continue;
+      }
+      if (skipped < offset) {
+        skipped++;
+        continue;
+      }
+      GSON.toJson(event, Event.class, writer);
+      written++;
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Returns the full response for {@code snapshot}, encoding it if the calendar has changed since
+   * it was last encoded. Two requests racing on a new version may both encode it, which is
+   * harmless since they produce the same response.
+   */
+  private EncodedResponse getAllEvents(CalendarService.Snapshot snapshot) {
+    EncodedCatalogue catalogue = allEvents;
+    if (catalogue == null || catalogue.version != snapshot.getVersion()) {
+      catalogue = new EncodedCatalogue(
+          snapshot.getVersion(), EncodedResponse.ofJson(GSON.toJson(snapshot.getEvents())));
+      allEvents = catalogue;
+    }
+    return catalogue.response;
+  }
+
+  private static boolean hasAnyParameter(HttpServletRequest request) {
+    for (String name : PARAMETERS) {
+      if (request.getParameter(name) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the integer value of the parameter called {@code name}, or {@code defaultValue} if the
+   * request doesn't have it.
+   */
+  private static int getIntParameter(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new NumberFormatException("Invalid " + name + ": " + value);
+    }
+  }
+
+  /** The full response for one version of the calendar. */
+  private static final class EncodedCatalogue {
+    private final long version;
+    private final EncodedResponse response;
+
+    private EncodedCatalogue(long version, EncodedResponse response) {
+      this.version = version;
+      this.response = response;
+    }
   }
 }
@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hand-written Gson adapters for the types the query servlets read and write most, so that
+ * (de)serializing them doesn't go through reflection. The JSON is the same as Gson's reflective
+ * form: {@code TimeRange}s are {@code {"start":..,"duration":..}} and {@code MeetingRequest}s have
+ * {@code attendees}, {@code optional_attendees}, {@code duration} and {@code window}.
+ */
+final class JsonAdapters {
+  /** A {@code Gson} that uses the adapters below. It is safe to use from several threads. */
+  static final Gson GSON = new GsonBuilder()
+      .registerTypeAdapter(TimeRange.class, new TimeRangeAdapter().nullSafe())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestAdapter().nullSafe())
+      .create();
+
+  private JsonAdapters() {}
+
+  // JsonReader throws NumberFormatException for numbers like 1.5 or ones out of range. Gson passes
+  // that through unwrapped, while reflective Gson reports it as a JsonSyntaxException, which is
+  // what the servlets expect for bad input.
+  private static int nextInt(JsonReader in) throws IOException {
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  private static long nextLong(JsonReader in) throws IOException {
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  private static final class TimeRangeAdapter extends TypeAdapter<TimeRange> {
+    @Override
+    public void write(JsonWriter out, TimeRange range) throws IOException {
+      out.beginObject();
+      out.name("start").value(range.start());
+      out.name("duration").value(range.duration());
+      out.endObject();
+    }
+
+    @Override
+    public TimeRange read(JsonReader in) throws IOException {
+      int start = 0;
+      int duration = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "start":
+            start = nextInt(in);
+            break;
+          case "duration":
+            duration = nextInt(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return TimeRange.fromStartDuration(start, duration);
+    }
+  }
+
+  private static final class MeetingRequestAdapter extends TypeAdapter<MeetingRequest> {
+    private final TimeRangeAdapter timeRanges = new TimeRangeAdapter();
+
+    @Override
+    public void write(JsonWriter out, MeetingRequest request) throws IOException {
+      out.beginObject();
+      writeNames(out.name("attendees"), request.getAttendees());
+      writeNames(out.name("optional_attendees"), request.getOptionalAttendees());
+      out.name("duration").value(request.getDuration());
+      timeRanges.write(out.name("window"), request.getWindow());
+      out.endObject();
+    }
+
+    @Override
+    public MeetingRequest read(JsonReader in) throws IOException {
+      List<String> attendees = new ArrayList<>();
+      List<String> optionalAttendees = new ArrayList<>();
+      long duration = 0;
+      TimeRange window = TimeRange.WHOLE_DAY;
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (in.peek() == JsonToken.NULL) {
+          // Gson leaves fields that are null in the JSON unset, so use the defaults.
+          in.nextNull();
+          continue;
+        }
+        switch (name) {
+          case "attendees":
+            readNames(in, attendees);
+            break;
+          case "optional_attendees":
+            readNames(in, optionalAttendees);
+            break;
+          case "duration":
+            duration = nextLong(in);
+            break;
+          case "window":
+            window = timeRanges.read(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      MeetingRequest request = new MeetingRequest(attendees, duration, window);
+      for (String attendee : optionalAttendees) {
+        request.addOptionalAttendee(attendee);
+      }
+      return request;
+    }
+
+    private static void writeNames(JsonWriter out, Collection<String> names) throws IOException {
+      out.beginArray();
+      for (String name : names) {
+        out.value(name);
+      }
+      out.endArray();
+    }
+
+    private static void readNames(JsonReader in, List<String> names) throws IOException {
+      in.beginArray();
+      while (in.hasNext()) {
+        if (in.peek() == JsonToken.NULL) {
+          throw new JsonParseException("attendee names cannot be null");
+        }
+        names.add(in.nextString());
+      }
+      in.endArray();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingRequest;
+import com.google.sps.RangeBuffer;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A compact binary encoding of meeting requests and of the times that answer them, served as
+ * {@code application/x-sps-meeting} alongside JSON. Every number is a varint (7 bits per byte,
+ * low bits first, high bit set on all but the last byte); signed numbers are zigzag-encoded first
+ * so that small negative numbers stay short. Strings are a varint byte length followed by UTF-8.
+ *
+ * <p>A request is: the number of attendees and each attendee's name, the same for the optional
+ * attendees, the duration, then either 0, or 1 followed by the window's start and duration.
+ *
+ * <p>An answer is: the number of times, then each time's start and duration.
+ */
+final class MeetingCodec {
+  static final String MEDIA_TYPE = "application/x-sps-meeting";
+
+  // Limits that keep a malformed length from allocating much before the body runs out.
+  private static final int MAX_NAMES = 1 << 16;
+  private static final int MAX_NAME_BYTES = 1 << 12;
+
+  private MeetingCodec() {}
+
+  /**
+   * Checks if {@code header}, the value of a {@code Content-Type} or {@code Accept} header, names
+   * this encoding.
+   */
+  static boolean isNamedIn(String header) {
+    return header != null && header.contains(MEDIA_TYPE);
+  }
+
+  /**
+   * Encodes {@code request}.
+   */
+  static byte[] encodeRequest(MeetingRequest request) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeNames(out, request.getAttendees());
+    writeNames(out, request.getOptionalAttendees());
+    writeVarint(out, zigzag(request.getDuration()));
+    out.write(1);
+    writeRange(out, request.getWindow().start(), request.getWindow().duration());
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads one request from {@code in}.
+   *
+   * @throws IllegalArgumentException if the request is malformed or cut short.
+   * @throws IOException if {@code in} can't be read.
+   */
+  static MeetingRequest decodeRequest(InputStream in) throws IOException {
+    List<String> attendees = readNames(in);
+    List<String> optionalAttendees = readNames(in);
+    long duration = unzigzag(readVarint(in));
+    TimeRange window = TimeRange.WHOLE_DAY;
+    int hasWindow = readByte(in);
+    if (hasWindow == 1) {
+      window = TimeRange.fromStartDuration(readInt(in), readInt(in));
+    } else if (hasWindow != 0) {
+      throw new IllegalArgumentException("Invalid window marker: " + hasWindow);
+    }
+
+    MeetingRequest request = new MeetingRequest(attendees, duration, window);
+    for (String attendee : optionalAttendees) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  /**
+   * Encodes {@code times} as an answer.
+   */
+  static byte[] encodeTimes(Collection<TimeRange> times) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(1 + 4 * times.size());
+    writeVarint(out, times.size());
+    for (TimeRange time : times) {
+      writeRange(out, time.start(), time.duration());
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Encodes the times in {@code buffer} as an answer, without creating {@code TimeRange}s.
+   */
+  static byte[] encodeTimes(RangeBuffer buffer) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(1 + 4 * buffer.size());
+    writeVarint(out, buffer.size());
+    for (int i = 0; i < buffer.size(); i++) {
+      writeRange(out, buffer.start(i), buffer.duration(i));
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads one answer from {@code in}.
+   *
+   * @throws IllegalArgumentException if the answer is malformed or cut short.
+   * @throws IOException if {@code in} can't be read.
+   */
+  static List<TimeRange> decodeTimes(InputStream in) throws IOException {
+    int count = readCount(in, Integer.MAX_VALUE);
+    List<TimeRange> times = new ArrayList<>(Math.min(count, MAX_NAMES));
+    for (int i = 0; i < count; i++) {
+      times.add(TimeRange.fromStartDuration(readInt(in), readInt(in)));
+    }
+    return times;
+  }
+
+  private static void writeNames(ByteArrayOutputStream out, Collection<String> names) {
+    writeVarint(out, names.size());
+    for (String name : names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      writeVarint(out, bytes.length);
+      out.write(bytes, 0, bytes.length);
+    }
+  }
+
+  private static List<String> readNames(InputStream in) throws IOException {
+    int count = readCount(in, MAX_NAMES);
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[readCount(in, MAX_NAME_BYTES)];
+      int read = 0;
+      while (read < bytes.length) {
+        int n = in.read(bytes, read, bytes.length - read);
+        if (n < 0) {
+          throw new IllegalArgumentException("Request ends in the middle of a name");
+        }
+        read += n;
+      }
+      names.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return names;
+  }
+
+  private static void writeRange(ByteArrayOutputStream out, int start, int duration) {
+    writeVarint(out, zigzag(start));
+    writeVarint(out, zigzag(duration));
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte(in);
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Varint is longer than 10 bytes");
+  }
+
+  private static int readCount(InputStream in, int max) throws IOException {
+    long count = readVarint(in);
+    if (count < 0 || count > max) {
+      throw new IllegalArgumentException("Invalid count: " + count);
+    }
+    return (int) count;
+  }
+
+  private static int readInt(InputStream in) throws IOException {
+    long value = unzigzag(readVarint(in));
+    if (value != (int) value) {
+      throw new IllegalArgumentException("Value out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  private static int readByte(InputStream in) throws IOException {
+    int b = in.read();
+    if (b < 0) {
+      throw new IllegalArgumentException("Unexpected end of input", new EOFException());
+    }
+    return b;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
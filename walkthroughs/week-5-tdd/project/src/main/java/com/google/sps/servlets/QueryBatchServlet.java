@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeIndex;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests at once. The response is a JSON array with the possible
+ * meeting times for each request, in the same order as the requests.
+ */
+@WebServlet("/query-batch")
+public class QueryBatchServlet extends HttpServlet {
+  private static final Type MEETING_REQUESTS = new TypeToken<List<MeetingRequest>>() {}.getType();
+
+  // The most requests a single batch may hold.
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = JsonAdapters.GSON;
+
+    // Convert the JSON to a list of MeetingRequests.
+    List<MeetingRequest> meetingRequests;
+    try {
+      meetingRequests = gson.fromJson(request.getReader(), MEETING_REQUESTS);
+    } catch (IllegalArgumentException | JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid meeting request");
+      return;
+    }
+    if (meetingRequests == null || meetingRequests.isEmpty()) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing meeting requests");
+      return;
+    }
+    if (meetingRequests.size() > MAX_BATCH_SIZE) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "A batch can have at most " + MAX_BATCH_SIZE + " meeting requests");
+      return;
+    }
+    if (meetingRequests.contains(null)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing meeting request");
+      return;
+    }
+
+    // Find the possible meeting times for all of them against the same events.
+    AttendeeIndex index = Events.CALENDAR.getSnapshot().getIndex();
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Collection<TimeRange>> answers = findMeetingQuery.queryAll(index, meetingRequests);
+
+    // Convert the times to JSON
+    String jsonResponse = gson.toJson(answers);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(jsonResponse);
+  }
+}
@@ -14,14 +14,25 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.AttendeeIndex;
+import com.google.sps.CalendarService;
 import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryResultCache;
+import com.google.sps.RangeBuffer;
+import com.google.sps.RoomSlot;
+import com.google.sps.SchedulerMetrics;
+import com.google.sps.SlotScorer;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,23 +40,146 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  // Pass ?mode=maximize-optional to get the times the most optional attendees can make.
+  private static final String MODE_MAXIMIZE_OPTIONAL = "maximize-optional";
+
+  // Pass ?mode=with-room to get the times a fitting room is free too, each with its room.
+  private static final String MODE_WITH_ROOM = "with-room";
+
+  // Pass ?top=N to get only the N best meeting times, best first.
+  private static final String PARAMETER_TOP = "top";
+  private static final int MAX_TOP = 100;
+
+  // Each request thread answers plain queries into its own buffer, over and over.
+  private static final ThreadLocal<RangeBuffer> BUFFERS =
+      ThreadLocal.withInitial(RangeBuffer::new);
+
+  // The UI posts the same request again as users switch views.
+  private static final QueryResultCache<byte[]> CACHE = new QueryResultCache<>(1024);
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+    long started = System.nanoTime();
+    long allocatedBefore = SchedulerMetrics.currentThreadAllocatedBytes();
+    try {
+      answer(request, response);
+    } finally {
+      long allocatedAfter = SchedulerMetrics.currentThreadAllocatedBytes();
+      SchedulerMetrics.getDefault().recordRequest(System.nanoTime() - started,
+          allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+    }
+  }
+
+  private void answer(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    int top = -1;
+    String topParameter = request.getParameter(PARAMETER_TOP);
+    if (topParameter != null) {
+      try {
+        top = Integer.parseInt(topParameter);
+      } catch (NumberFormatException e) {
+        top = -1;
+      }
+      if (top < 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "top must be a whole number");
+        return;
+      }
+      if (top > MAX_TOP) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "top can be at most " + MAX_TOP);
+        return;
+      }
+    }
+
+    // Convert the JSON, or the binary encoding, to an instance of MeetingRequest.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = MeetingCodec.isNamedIn(request.getContentType())
+          ? MeetingCodec.decodeRequest(request.getInputStream())
+          : JsonAdapters.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (IllegalArgumentException | JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid meeting request");
+      return;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing meeting request");
+      return;
+    }
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    // Answers with rooms only have a JSON form.
+    String mode = request.getParameter("mode");
+    boolean binary =
+        MeetingCodec.isNamedIn(request.getHeader("Accept")) && !MODE_WITH_ROOM.equals(mode);
 
-    // Find the possible meeting times.
+    // Find the possible meeting times, or reuse them if the same request was answered against
+    // the same calendar. Answers are cached encoded, so a hit skips encoding too.
+    CalendarService.Snapshot snapshot = Events.CALENDAR.getSnapshot();
+    int limit = top;
+    byte[] body = CACHE.get(snapshot.getVersion(), binary + "/" + mode + "/" + top,
+        meetingRequest, () -> answer(snapshot.getIndex(), meetingRequest, mode, limit, binary));
+
+    // Send the answer back as the response
+    response.setHeader("Vary", "Accept");
+    if (binary) {
+      response.setContentType(MeetingCodec.MEDIA_TYPE);
+    } else {
+      response.setContentType("application/json");
+      response.setCharacterEncoding("UTF-8");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  private static byte[] answer(AttendeeIndex index, MeetingRequest meetingRequest, String mode,
+      int top, boolean binary) {
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    if (MODE_WITH_ROOM.equals(mode)) {
+      List<RoomSlot> slots =
+          findMeetingQuery.queryWithRoom(index, meetingRequest, Arrays.asList(Events.rooms));
+      return toJsonBytes(JsonAdapters.GSON.toJson(slots));
+    }
+
+    Collection<TimeRange> answer;
+    if (MODE_MAXIMIZE_OPTIONAL.equals(mode)) {
+      answer = findMeetingQuery.queryMaximizingOptional(index, meetingRequest);
+    } else if (top >= 0) {
+      answer = findMeetingQuery.queryRanked(index, meetingRequest, SlotScorer.DEFAULT, top);
+    } else {
+      RangeBuffer buffer = BUFFERS.get();
+      findMeetingQuery.queryInto(index, meetingRequest, buffer);
+      return binary ? MeetingCodec.encodeTimes(buffer) : toJsonBytes(toJson(buffer));
+    }
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // Convert the times to the requested encoding
+    return binary
+        ? MeetingCodec.encodeTimes(answer)
+        : toJsonBytes(JsonAdapters.GSON.toJson(answer));
+  }
+
+  private static byte[] toJsonBytes(String json) {
+    return (json + "\n").getBytes(StandardCharsets.UTF_8);
+  }
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+  /**
+   * Returns the times in {@code buffer} in the same JSON form as a list of {@code TimeRange}s,
+   * without creating the {@code TimeRange}s.
+   */
+  private static String toJson(RangeBuffer buffer) {
+    StringWriter json = new StringWriter();
+    try {
+      JsonWriter writer = JsonAdapters.GSON.newJsonWriter(json);
+      writer.beginArray();
+      for (int i = 0; i < buffer.size(); i++) {
+        writer.beginObject();
+        writer.name("start").value(buffer.start(i));
+        writer.name("duration").value(buffer.duration(i));
+        writer.endObject();
+      }
+      writer.endArray();
+      writer.flush();
+    } catch (IOException e) {
+      // Only an in-memory writer is involved, so this can't happen.
+      throw new IllegalStateException(e);
+    }
+    return json.toString();
   }
 }
@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  @Test
+  public void idsAreDenseAndStable() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(0, dictionary.getId("Person A"));
+    Assert.assertEquals(1, dictionary.getId("Person B"));
+    Assert.assertEquals(0, dictionary.getId("Person A"));
+    Assert.assertEquals(2, dictionary.size());
+    Assert.assertEquals("Person B", dictionary.getName(1));
+  }
+
+  @Test
+  public void idsAreSortedWithoutDuplicates() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.getId("Person A");
+    dictionary.getId("Person B");
+
+    int[] actual = dictionary.intern(Arrays.asList("Person B", "Person C", "Person A", "Person B"))
+        .getIds();
+
+    Assert.assertArrayEquals(new int[] {0, 1, 2}, actual);
+  }
+
+  @Test
+  public void knownIdsLeaveOutNewNames() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.getId("Person A");
+
+    int[] actual = dictionary.getKnownIds(Arrays.asList("Person C", "Person A"));
+
+    Assert.assertArrayEquals(new int[] {0}, actual);
+    Assert.assertEquals(1, dictionary.size());
+  }
+
+  @Test
+  public void unusedNamesAreDropped() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    AttendeeDictionary.Interned kept = dictionary.intern(Arrays.asList("Person A", "Person B"));
+    dictionary.intern(Arrays.asList("Person B", "Person C"));
+
+    dictionary.release("Person C");
+
+    Assert.assertEquals(2, dictionary.size());
+    Assert.assertArrayEquals(new int[] {0, 1}, dictionary.getKnownIds(
+        Arrays.asList("Person A", "Person B", "Person C")));
+    // Dropped IDs aren't handed out again.
+    Assert.assertArrayEquals(
+        new int[] {3}, dictionary.intern(Arrays.asList("Person C")).getIds());
+    Assert.assertArrayEquals(new int[] {0, 1}, kept.getIds());
+  }
+
+  @Test
+  public void intersects() {
+    Assert.assertTrue(AttendeeDictionary.intersects(new int[] {1, 4, 9}, new int[] {2, 9}));
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {1, 4, 9}, new int[] {2, 5}));
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {}, new int[] {2, 5}));
+  }
+}
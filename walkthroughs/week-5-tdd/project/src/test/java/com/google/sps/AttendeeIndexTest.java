@@ -0,0 +1,122 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIndexTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final Event EVENT_1 =
+      new Event("Event 1", TimeRange.fromStartDuration(480, 30), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 =
+      new Event("Event 2", TimeRange.fromStartDuration(540, 30), Arrays.asList(PERSON_A, PERSON_B));
+
+  @Test
+  public void eventsAreIndexedByEveryAttendee() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1, EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), index.getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_2), index.getEvents(PERSON_B));
+    Assert.assertEquals(Arrays.asList(), index.getEvents(PERSON_C));
+  }
+
+  @Test
+  public void busyTimelineOnlyIncludesRequestedAttendees() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1, EVENT_2));
+
+    Collection<TimeRange> actual =
+        index.getBusyTimeline(Arrays.asList(PERSON_B, PERSON_C)).toTimeRanges();
+    Collection<TimeRange> expected = Arrays.asList(EVENT_2.getWhen());
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void addingAnEventOnlyChangesItsAttendees() {
+    AttendeeIndex before = new AttendeeIndex(Arrays.asList(EVENT_1));
+    Event added = new Event(
+        "Event 3", TimeRange.fromStartDuration(500, 60), Arrays.asList(PERSON_A, PERSON_C));
+
+    AttendeeIndex after = before.withEvent(added);
+
+    Assert.assertEquals(Arrays.asList(EVENT_1), before.getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_1, added), after.getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(480, 560, false)),
+        after.getBusyTimeline(PERSON_A).toTimeRanges());
+    Assert.assertEquals(Arrays.asList(added.getWhen()),
+        after.getBusyTimeline(PERSON_C).toTimeRanges());
+  }
+
+  @Test
+  public void removingAnEventRebuildsItsAttendees() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1, EVENT_2)).withoutEvent(EVENT_2);
+
+    Assert.assertEquals(Arrays.asList(EVENT_1), index.getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(), index.getEvents(PERSON_B));
+    Assert.assertEquals(BusyTimeline.EMPTY, index.getBusyTimeline(PERSON_B));
+    Assert.assertEquals(Arrays.asList(EVENT_1.getWhen()),
+        index.getBusyTimeline(PERSON_A).toTimeRanges());
+  }
+
+  @Test
+  public void eventsOverlappingRange() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1, EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_2),
+        index.getEvents(PERSON_A, TimeRange.fromStartDuration(520, 60)));
+    Assert.assertEquals(Arrays.asList(),
+        index.getEvents(PERSON_B, TimeRange.fromStartDuration(480, 30)));
+  }
+
+  @Test
+  public void queryThroughIndexMatchesQueryOverEvents() {
+    Collection<Event> events = Arrays.asList(EVENT_1, EVENT_2,
+        new Event("Event 3", TimeRange.fromStartDuration(510, 30), Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_C);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Collection<TimeRange> expected = query.query(events, request);
+    Collection<TimeRange> actual = query.query(new AttendeeIndex(events), request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryIntoBufferMatchesQuery() {
+    Collection<Event> events = Arrays.asList(EVENT_1, EVENT_2,
+        new Event("Event 3", TimeRange.fromStartDuration(510, 30), Arrays.asList(PERSON_C)));
+    AttendeeIndex index = new AttendeeIndex(events);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_C);
+    RangeBuffer buffer = new RangeBuffer();
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    query.queryInto(index, request, buffer);
+
+    Assert.assertEquals(query.query(index, request), buffer.toTimeRanges());
+  }
+}
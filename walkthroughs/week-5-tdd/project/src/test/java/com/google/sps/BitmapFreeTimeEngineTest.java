@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BitmapFreeTimeEngineTest {
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FreeTimeEngine engine = new BitmapFreeTimeEngine();
+
+  @Test
+  public void noBusyTimesIsWholeDay() {
+    Collection<TimeRange> actual =
+        engine.findFreeTimes(new ArrayList<TimeRange>(), TimeRange.WHOLE_DAY, 60);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsForTooLongOfARequest() {
+    int duration = TimeRange.WHOLE_DAY.duration() + 1;
+
+    Collection<TimeRange> actual =
+        engine.findFreeTimes(new ArrayList<TimeRange>(), TimeRange.WHOLE_DAY, duration);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void rangesAcrossWordBoundaries() {
+    // Minutes 63, 64 and 127, 128 sit on either side of a word in the bitmap.
+    List<TimeRange> busy = new ArrayList<>(Arrays.asList(
+        TimeRange.fromStartEnd(63, 65, false), TimeRange.fromStartEnd(127, 129, false)));
+
+    Collection<TimeRange> actual = engine.findFreeTimes(busy, TimeRange.WHOLE_DAY, 1);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 63, false),
+        TimeRange.fromStartEnd(65, 127, false),
+        TimeRange.fromStartEnd(129, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void busyUntilEndOfDay() {
+    List<TimeRange> busy = new ArrayList<>(
+        Arrays.asList(TimeRange.fromStartEnd(60, TimeRange.END_OF_DAY, true)));
+
+    Collection<TimeRange> actual =
+        engine.findFreeTimes(busy, TimeRange.WHOLE_DAY, DURATION_30_MINUTES);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 60, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowLongerThanADay() {
+    // A week of minutes, busy for the first hour of every day.
+    TimeRange week = TimeRange.fromStartDuration(0, 7 * TimeRange.MINUTES_PER_DAY);
+    List<TimeRange> busy = new ArrayList<>();
+    List<TimeRange> expected = new ArrayList<>();
+    for (int day = 0; day < 7; day++) {
+      int startOfDay = day * TimeRange.MINUTES_PER_DAY;
+      busy.add(TimeRange.fromStartDuration(startOfDay, 60));
+      expected.add(
+          TimeRange.fromStartEnd(startOfDay + 60, startOfDay + TimeRange.MINUTES_PER_DAY, false));
+    }
+
+    Collection<TimeRange> actual = engine.findFreeTimes(busy, week, DURATION_30_MINUTES);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesSortedEngine() {
+    FreeTimeEngine reference = new SortedFreeTimeEngine();
+    Random random = new Random(5);
+    for (int round = 0; round < 200; round++) {
+      List<TimeRange> busy = new ArrayList<>();
+      int events = random.nextInt(20);
+      for (int i = 0; i < events; i++) {
+        busy.add(TimeRange.fromStartDuration(random.nextInt(1440), 1 + random.nextInt(120)));
+      }
+      int duration = 1 + random.nextInt(90);
+      TimeRange window = TimeRange.fromStartDuration(random.nextInt(720), 1 + random.nextInt(720));
+
+      Collection<TimeRange> expected =
+          reference.findFreeTimes(new ArrayList<>(busy), window, duration);
+      Collection<TimeRange> actual = engine.findFreeTimes(new ArrayList<>(busy), window, duration);
+
+      Assert.assertEquals(expected, actual);
+    }
+  }
+}
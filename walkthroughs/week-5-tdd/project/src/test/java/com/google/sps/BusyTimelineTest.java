@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyTimelineTest {
+  private static final Collection<String> ATTENDEES = Arrays.asList("Person A");
+
+  private static Event event(int start, int end) {
+    return new Event("Event", TimeRange.fromStartEnd(start, end, false), ATTENDEES);
+  }
+
+  private static BusyTimeline timeline(Event... events) {
+    return BusyTimeline.fromEvents(Arrays.asList(events));
+  }
+
+  @Test
+  public void overlappingAndTouchingEventsAreCoalesced() {
+    // Events  : |--1--|  |--3--|
+    //              |--2--|         |4|
+    // Timeline: |--------------|   |4|
+    BusyTimeline actual = timeline(event(0, 30), event(20, 50), event(50, 80), event(100, 110));
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(0, 80, false), TimeRange.fromStartEnd(100, 110, false));
+
+    Assert.assertEquals(expected, actual.toTimeRanges());
+  }
+
+  @Test
+  public void eventsWithoutDurationAreIgnored() {
+    BusyTimeline actual = timeline(event(60, 60));
+
+    Assert.assertEquals(BusyTimeline.EMPTY, actual);
+  }
+
+  @Test
+  public void mergeKeepsOrderAndCoalesces() {
+    BusyTimeline a = timeline(event(0, 30), event(100, 130));
+    BusyTimeline b = timeline(event(20, 40), event(200, 230));
+    BusyTimeline c = timeline(event(130, 150));
+
+    BusyTimeline actual = BusyTimeline.merge(Arrays.asList(a, b, c));
+    BusyTimeline expected = timeline(event(0, 40), event(100, 150), event(200, 230));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void parallelMergeMatchesTimelineOfAllEvents() {
+    // Enough timelines that the merge is split into several tasks.
+    Random random = new Random(42);
+    List<Event> all = new ArrayList<>();
+    List<BusyTimeline> timelines = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      List<Event> events = new ArrayList<>();
+      for (int j = 0; j < 20; j++) {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        events.add(event(start, Math.min(start + 1 + random.nextInt(60), TimeRange.END_OF_DAY)));
+      }
+      all.addAll(events);
+      timelines.add(BusyTimeline.fromEvents(events));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Assert.assertEquals(BusyTimeline.fromEvents(all), BusyTimeline.merge(timelines, pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void withRangeLeavesOriginalUnchanged() {
+    BusyTimeline original = timeline(event(0, 30));
+
+    BusyTimeline actual = original.withRange(TimeRange.fromStartEnd(10, 60, false));
+
+    Assert.assertEquals(timeline(event(0, 30)), original);
+    Assert.assertEquals(timeline(event(0, 60)), actual);
+  }
+
+  @Test
+  public void withinKeepsRangesOverlappingWindow() {
+    BusyTimeline all = timeline(event(0, 30), event(100, 130), event(200, 230), event(300, 330));
+
+    BusyTimeline actual = all.within(TimeRange.fromStartEnd(120, 200, false));
+
+    Assert.assertEquals(timeline(event(100, 130)), actual);
+    Assert.assertEquals(all, all.within(TimeRange.WHOLE_DAY));
+    Assert.assertEquals(BusyTimeline.EMPTY, all.within(TimeRange.fromStartEnd(30, 100, false)));
+  }
+
+  @Test
+  public void freeTimesGoIntoBuffer() {
+    // Timeline:    |--1--|      |--2--|
+    // Window  : |----------------------|
+    // Free    : |-|      |------|
+    BusyTimeline busy = timeline(event(10, 30), event(60, 100));
+    RangeBuffer out = new RangeBuffer();
+
+    busy.addFreeTimes(TimeRange.fromStartEnd(0, 90, false), 10, out);
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(0, 10, false), TimeRange.fromStartEnd(30, 60, false));
+    Assert.assertEquals(expected, out.toTimeRanges());
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarServiceTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final Event EVENT_1 =
+      new Event("Event 1", TimeRange.fromStartDuration(480, 30), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 =
+      new Event("Event 2", TimeRange.fromStartDuration(540, 30), Arrays.asList(PERSON_A));
+
+  @Test
+  public void snapshotsDontSeeLaterChanges() {
+    CalendarService calendar = new CalendarService(Arrays.asList(EVENT_1));
+    CalendarService.Snapshot before = calendar.getSnapshot();
+
+    calendar.addEvent(EVENT_2);
+    CalendarService.Snapshot after = calendar.getSnapshot();
+
+    Assert.assertEquals(Arrays.asList(EVENT_1), before.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_1), before.getIndex().getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), after.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), after.getIndex().getEvents(PERSON_A));
+    Assert.assertEquals(before.getVersion() + 1, after.getVersion());
+  }
+
+  @Test
+  public void removeEvent() {
+    CalendarService calendar = new CalendarService(Arrays.asList(EVENT_1, EVENT_2));
+
+    CalendarService.Snapshot after = calendar.removeEvent(EVENT_1);
+
+    Assert.assertEquals(Arrays.asList(EVENT_2), after.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_2), after.getIndex().getEvents(PERSON_A));
+  }
+
+  @Test
+  public void removeMissingEventKeepsVersion() {
+    CalendarService calendar = new CalendarService(Arrays.asList(EVENT_1));
+
+    Assert.assertNull(calendar.removeEvent(EVENT_2));
+    Assert.assertEquals(0, calendar.getSnapshot().getVersion());
+  }
+}
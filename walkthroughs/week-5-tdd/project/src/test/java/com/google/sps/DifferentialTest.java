@@ -0,0 +1,205 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Runs every way of answering a meeting query on random calendars and checks that they all agree
+ * with a minute-by-minute reference, then prints how many queries per second each managed. The
+ * defaults keep {@code mvn test} quick; scale it up for a load test with, e.g.:
+ *
+ * <pre>
+ * mvn test -Dtest=DifferentialTest -Dsps.differential.rounds=2000 -Dsps.differential.events=20000
+ * </pre>
+ *
+ * A mismatch reports the seed and round, which {@code -Dsps.differential.seed} reproduces.
+ */
+@RunWith(JUnit4.class)
+public final class DifferentialTest {
+  private static final int ROUNDS = Integer.getInteger("sps.differential.rounds", 40);
+  private static final int EVENTS = Integer.getInteger("sps.differential.events", 300);
+  private static final int REQUESTS_PER_ROUND = 25;
+  private static final int PEOPLE = 20;
+  private static final int DAYS = 3;
+
+  @Test
+  public void everyPathAgreesWithReference() {
+    long seed = Long.getLong("sps.differential.seed", System.nanoTime());
+    Random random = new Random(seed);
+    FindMeetingQuery sorted = new FindMeetingQuery(new SortedFreeTimeEngine());
+    FindMeetingQuery bitmap = new FindMeetingQuery(new BitmapFreeTimeEngine());
+    RangeBuffer buffer = new RangeBuffer();
+
+    Map<String, long[]> timings = new LinkedHashMap<>();
+    for (int round = 0; round < ROUNDS; round++) {
+      List<Event> events = randomEvents(random, EVENTS);
+      AttendeeIndex index = new AttendeeIndex(events);
+      EventIntervalTree tree = new EventIntervalTree(events);
+
+      Map<String, Function<MeetingRequest, Collection<TimeRange>>> paths = new LinkedHashMap<>();
+      paths.put("sorted events", request -> sorted.query(events, request));
+      paths.put("bitmap events", request -> bitmap.query(events, request));
+      paths.put("sorted index", request -> sorted.query(index, request));
+      paths.put("bitmap index", request -> bitmap.query(index, request));
+      paths.put("interval tree", request -> sorted.query(tree, request));
+      paths.put("index into buffer", request -> {
+        sorted.queryInto(index, request, buffer);
+        return buffer.toTimeRanges();
+      });
+
+      for (int i = 0; i < REQUESTS_PER_ROUND; i++) {
+        MeetingRequest request = randomRequest(random);
+        List<TimeRange> expected = reference(events, request);
+        for (Map.Entry<String, Function<MeetingRequest, Collection<TimeRange>>> path
+            : paths.entrySet()) {
+          long started = System.nanoTime();
+          Collection<TimeRange> actual = path.getValue().apply(request);
+          long[] timing = timings.computeIfAbsent(path.getKey(), name -> new long[2]);
+          timing[0]++;
+          timing[1] += System.nanoTime() - started;
+
+          Assert.assertEquals(String.format("%s disagrees (seed %d, round %d, request %d)",
+              path.getKey(), seed, round, i), expected, new ArrayList<>(actual));
+        }
+      }
+    }
+
+    for (Map.Entry<String, long[]> timing : timings.entrySet()) {
+      long queries = timing.getValue()[0];
+      double seconds = timing.getValue()[1] / 1e9;
+      System.out.printf("%-18s %8d queries %12.0f queries/s%n",
+          timing.getKey(), queries, queries / Math.max(seconds, 1e-9));
+    }
+  }
+
+  private static List<Event> randomEvents(Random random, int count) {
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int start = random.nextInt(DAYS * TimeRange.MINUTES_PER_DAY) - 120;
+      int duration = random.nextInt(10) == 0 ? 0 : 5 * random.nextInt(36);
+      List<String> attendees = new ArrayList<>();
+      for (int j = random.nextInt(3) + 1; j > 0; j--) {
+        attendees.add(person(random.nextInt(PEOPLE)));
+      }
+      Recurrence recurrence = null;
+      if (random.nextInt(20) == 0) {
+        recurrence = new Recurrence(
+            TimeRange.MINUTES_PER_DAY / (random.nextInt(4) + 1), random.nextInt(6) + 2);
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees,
+          recurrence));
+    }
+    return events;
+  }
+
+  private static MeetingRequest randomRequest(Random random) {
+    List<String> mandatory = new ArrayList<>();
+    for (int j = random.nextInt(4); j > 0; j--) {
+      mandatory.add(person(random.nextInt(PEOPLE)));
+    }
+    int windowStart = random.nextInt(DAYS * TimeRange.MINUTES_PER_DAY);
+    int windowLength = random.nextInt(2) == 0
+        ? TimeRange.MINUTES_PER_DAY
+        : random.nextInt(DAYS * TimeRange.MINUTES_PER_DAY) + 1;
+    long duration = random.nextInt(10) == 0 ? 0 : 15 * (random.nextInt(12) + 1);
+    MeetingRequest request = new MeetingRequest(
+        mandatory, duration, TimeRange.fromStartDuration(windowStart, windowLength));
+    for (int j = random.nextInt(4); j > 0; j--) {
+      request.addOptionalAttendee(person(random.nextInt(PEOPLE)));
+    }
+    return request;
+  }
+
+  private static String person(int i) {
+    return "Person " + i;
+  }
+
+  /**
+   * Answers {@code request} the slow, obvious way: mark every busy minute of the window, then
+   * collect the free runs that are long enough.
+   */
+  private static List<TimeRange> reference(List<Event> events, MeetingRequest request) {
+    TimeRange window = request.getWindow();
+    boolean[] mandatoryBusy = new boolean[window.duration()];
+    boolean[] anyBusy = new boolean[window.duration()];
+    for (Event event : events) {
+      boolean mandatory = attendsAny(event, request.getAttendees());
+      boolean optional = attendsAny(event, request.getOptionalAttendees());
+      if (!mandatory && !optional) {
+        continue;
+      }
+      Recurrence recurrence = event.getRecurrence();
+      int occurrences = recurrence == null ? 1 : recurrence.getCount();
+      int interval = recurrence == null ? 0 : recurrence.getInterval();
+      for (int k = 0; k < occurrences; k++) {
+        int start = event.getWhen().start() + k * interval;
+        int end = start + event.getWhen().duration();
+        for (int minute = Math.max(start, window.start()); minute < Math.min(end, window.end());
+            minute++) {
+          anyBusy[minute - window.start()] = true;
+          if (mandatory) {
+            mandatoryBusy[minute - window.start()] = true;
+          }
+        }
+      }
+    }
+
+    List<TimeRange> withOptional = freeRuns(anyBusy, window, request.getDuration());
+    if (withOptional.isEmpty() && !request.getAttendees().isEmpty()
+        && !request.getOptionalAttendees().isEmpty()) {
+      return freeRuns(mandatoryBusy, window, request.getDuration());
+    }
+    return withOptional;
+  }
+
+  private static boolean attendsAny(Event event, Collection<String> people) {
+    for (String person : people) {
+      if (event.getAttendees().contains(person)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<TimeRange> freeRuns(boolean[] busy, TimeRange window, long duration) {
+    List<TimeRange> runs = new ArrayList<>();
+    int runStart = -1;
+    for (int i = 0; i <= busy.length; i++) {
+      boolean free = i < busy.length && !busy[i];
+      if (free && runStart < 0) {
+        runStart = i;
+      } else if (!free && runStart >= 0) {
+        if (i - runStart >= Math.max(duration, 1)) {
+          runs.add(TimeRange.fromStartEnd(
+              window.start() + runStart, window.start() + i, /*inclusive=*/false));
+        }
+        runStart = -1;
+      }
+    }
+    return runs;
+  }
+}
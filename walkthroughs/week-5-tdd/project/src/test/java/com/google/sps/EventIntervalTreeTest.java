@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIntervalTreeTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static Event event(String title, int start, int end, String... attendees) {
+    return new Event(title, TimeRange.fromStartEnd(start, end, false), Arrays.asList(attendees));
+  }
+
+  @Test
+  public void findsOverlappingEventsInStartOrder() {
+    // Events  : |-----1-----|
+    //              |2|   |--3--|
+    //                             |4|
+    // Range   :          |---|
+    Event event1 = event("Event 1", 0, 100, PERSON_A);
+    Event event2 = event("Event 2", 20, 30, PERSON_A);
+    Event event3 = event("Event 3", 60, 120, PERSON_B);
+    Event event4 = event("Event 4", 130, 140, PERSON_B);
+    EventIntervalTree tree = new EventIntervalTree(Arrays.asList(event4, event3, event2, event1));
+
+    List<Event> actual = tree.getOverlapping(TimeRange.fromStartEnd(50, 70, false));
+
+    Assert.assertEquals(Arrays.asList(event1, event3), actual);
+  }
+
+  @Test
+  public void touchingEventsDoNotOverlap() {
+    Event event = event("Event 1", 100, 200, PERSON_A);
+    EventIntervalTree tree = new EventIntervalTree(Arrays.asList(event));
+
+    Assert.assertEquals(
+        Arrays.asList(), tree.getOverlapping(TimeRange.fromStartEnd(0, 100, false)));
+    Assert.assertEquals(
+        Arrays.asList(), tree.getOverlapping(TimeRange.fromStartEnd(200, 300, false)));
+  }
+
+  @Test
+  public void addingAndRemovingKeepsStartOrder() {
+    Event event1 = event("Event 1", 0, 100, PERSON_A);
+    Event event2 = event("Event 2", 50, 60, PERSON_A);
+    Event event3 = event("Event 3", 50, 70, PERSON_A);
+    EventIntervalTree tree = new EventIntervalTree(Arrays.asList(event1, event2));
+
+    EventIntervalTree added = tree.withEvent(event3);
+    EventIntervalTree removed = added.withoutEvent(event2);
+
+    Assert.assertEquals(Arrays.asList(event1, event2), tree.getEvents());
+    Assert.assertEquals(Arrays.asList(event1, event2, event3), added.getEvents());
+    Assert.assertEquals(Arrays.asList(event1, event3), removed.getEvents());
+    Assert.assertSame(tree, tree.withoutEvent(event3));
+  }
+
+  @Test
+  public void matchesScanningEveryEvent() {
+    Random random = new Random(7);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(10000);
+      events.add(event("Event " + i, start, start + 1 + random.nextInt(300), PERSON_A));
+    }
+    EventIntervalTree tree = new EventIntervalTree(events);
+
+    for (int round = 0; round < 100; round++) {
+      TimeRange range = TimeRange.fromStartDuration(random.nextInt(10000), 1 + random.nextInt(500));
+
+      List<Event> expected = new ArrayList<>();
+      for (Event event : tree.getEvents()) {
+        if (event.getWhen().overlaps(range)) {
+          expected.add(event);
+        }
+      }
+
+      Assert.assertEquals(expected, tree.getOverlapping(range));
+    }
+  }
+
+  @Test
+  public void queryThroughTreeMatchesQueryOverEvents() {
+    Collection<Event> events = Arrays.asList(event("Event 1", 480, 510, PERSON_A),
+        event("Event 2", 540, 570, PERSON_B), event("Event 3", 600, 700, PERSON_A, PERSON_B));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_B);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Collection<TimeRange> expected = query.query(events, request);
+    Collection<TimeRange> actual = query.query(new EventIntervalTree(events), request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
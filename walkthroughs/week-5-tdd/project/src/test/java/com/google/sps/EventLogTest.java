@@ -0,0 +1,314 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final Event EVENT_1 =
+      new Event("Event 1", TimeRange.fromStartDuration(480, 30), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 = new Event("Event 2", TimeRange.fromStartDuration(540, 30),
+      Arrays.asList(PERSON_A, PERSON_B), Recurrence.weekly(52));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void reopenedLogHasAppendedEvents() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(), log.getEvents());
+      log.append(EVENT_1);
+      log.append(EVENT_2);
+      log.append(EVENT_1);
+      log.appendDelete(EVENT_1);
+    }
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_2, EVENT_1), log.getEvents());
+    }
+  }
+
+  @Test
+  public void partialRecordIsDropped() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    try (EventLog log = EventLog.open(file.toPath())) {
+      log.append(EVENT_1);
+      log.append(EVENT_2);
+    }
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.setLength(raw.length() - 3);
+    }
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), log.getEvents());
+      log.append(EVENT_2);
+    }
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), log.getEvents());
+    }
+  }
+
+  @Test
+  public void partialRecordIsPaddedAndReused() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    try (EventLog log = EventLog.open(file.toPath())) {
+      log.append(EVENT_1);
+      log.append(EVENT_2);
+    }
+    long fullLength = file.length();
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.setLength(fullLength - 3);
+    }
+
+    // The partial record is padded out rather than truncated, and stays that way on reopening.
+    for (int i = 0; i < 2; i++) {
+      try (EventLog log = EventLog.open(file.toPath())) {
+        Assert.assertEquals(Arrays.asList(EVENT_1), log.getEvents());
+      }
+      Assert.assertEquals(fullLength - 3, file.length());
+    }
+
+    // The next append writes over the padding.
+    try (EventLog log = EventLog.open(file.toPath())) {
+      log.append(EVENT_2);
+    }
+    Assert.assertEquals(fullLength, file.length());
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), log.getEvents());
+    }
+  }
+
+  @Test
+  public void deletesRemoveTheEarliestCopy() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    try (EventLog log = EventLog.open(file.toPath())) {
+      log.append(EVENT_1);
+      log.append(EVENT_2);
+      log.append(EVENT_1);
+      log.appendDelete(EVENT_1);
+      log.appendDelete(EVENT_2);
+      log.append(EVENT_2);
+      log.appendDelete(EVENT_1);
+      log.appendDelete(EVENT_1);
+    }
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_2), log.getEvents());
+    }
+  }
+
+  @Test
+  public void failedAppendIsRolledBack() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    FailingChannel channel = new FailingChannel(FileChannel.open(
+        file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE));
+    try (EventLog log = EventLog.open(file.toPath(), channel)) {
+      log.append(EVENT_1);
+      channel.failNextWrite = true;
+      try {
+        log.append(EVENT_2);
+        Assert.fail("Expected the append to fail");
+      } catch (IOException expected) {
+      }
+      log.append(EVENT_1);
+    }
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1), log.getEvents());
+      log.append(EVENT_2);
+    }
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1, EVENT_2), log.getEvents());
+    }
+  }
+
+  @Test
+  public void readsVersion1Log() throws Exception {
+    // A version 1 log: "Person A" and one event with no recurrence fields.
+    byte[] name = PERSON_A.getBytes(StandardCharsets.UTF_8);
+    byte[] title = "Event 1".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(8 + 5 + name.length + 17 + title.length + 4);
+    buffer.putInt(0x53505345).putInt(1);
+    buffer.put((byte) 'N').putInt(name.length).put(name);
+    buffer.put((byte) 'E').putInt(480).putInt(30);
+    buffer.putInt(title.length).put(title).putInt(1).putInt(0);
+    File file = new File(folder.getRoot(), "events.log");
+    Files.write(file.toPath(), buffer.array());
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), log.getEvents());
+      log.append(EVENT_1);
+      try {
+        log.append(EVENT_2);
+        Assert.fail("Expected a recurring event to be rejected");
+      } catch (IOException expected) {
+      }
+    }
+    try (EventLog log = EventLog.open(file.toPath())) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1), log.getEvents());
+    }
+  }
+
+  @Test
+  public void calendarWritesChangesToLog() throws Exception {
+    File file = new File(folder.getRoot(), "events.log");
+    try (EventLog log = EventLog.open(file.toPath())) {
+      CalendarService calendar = new CalendarService(log);
+      calendar.addEvent(EVENT_1);
+      calendar.addEvent(EVENT_2);
+      calendar.removeEvent(EVENT_1);
+    }
+
+    try (EventLog log = EventLog.open(file.toPath())) {
+      CalendarService calendar = new CalendarService(log);
+      Assert.assertEquals(Arrays.asList(EVENT_2), calendar.getSnapshot().getEvents());
+      Assert.assertEquals(Arrays.asList(EVENT_2),
+          calendar.getSnapshot().getIndex().getEvents(PERSON_B));
+    }
+  }
+
+  /**
+   * A channel that can be told to write only part of the next buffer it is given and then fail, as
+   * a full disk would.
+   */
+  private static final class FailingChannel extends FileChannel {
+    private final FileChannel delegate;
+    boolean failNextWrite;
+
+    FailingChannel(FileChannel delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+      if (failNextWrite) {
+        failNextWrite = false;
+        ByteBuffer half = src.duplicate();
+        half.limit(src.position() + src.remaining() / 2);
+        delegate.write(half, position);
+        throw new IOException("No space left on device");
+      }
+      return delegate.write(src, position);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      return delegate.read(dst);
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+      return delegate.read(dsts, offset, length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return delegate.write(src);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      return delegate.write(srcs, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+      return delegate.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+      delegate.position(newPosition);
+      return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+      return delegate.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+      delegate.truncate(size);
+      return this;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+      delegate.force(metaData);
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+        throws IOException {
+      return delegate.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+        throws IOException {
+      return delegate.transferFrom(src, position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+      return delegate.read(dst, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+      return delegate.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+      return delegate.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+      return delegate.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+      delegate.close();
+    }
+  }
+}
@@ -14,11 +14,13 @@
 
 package com.google.sps;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,6 +37,7 @@ public final class FindMeetingQueryTest {
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
   private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
@@ -413,6 +416,239 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-  
-}
 
+  @Test
+  public void maximizingOptionalMatchesQueryWhenEveryoneFits() {
+    // Same as considersOptionalAttendeesWhenPossible: everyone can make two of the gaps.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryMaximizingOptional(events, request);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalPicksTimesMostOptionalAttendeesCanMake() {
+    // B and C can't both make any time, but C and D can both make the time after 9:00.
+    //
+    // Events  : |--B--|           |------B----|
+    //           |--------C--------|
+    //                 |----D------|
+    // Day     : |-----------------------------|
+    // Options :                   |-----1-----|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.queryMaximizingOptional(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalCountsWholeMeeting() {
+    // B's short event rules out every hour-long meeting that would overlap it, not just the
+    // meetings that start during it.
+    //
+    // Events  :           |B|   |-----A-----|
+    // Day     : |-----------------------------|
+    // Options : |----1----|  |2|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, DURATION_15_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryMaximizingOptional(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM + DURATION_15_MINUTES, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryAllAnswersEachRequestInOrder() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      requests.add(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+      requests.add(new MeetingRequest(Arrays.asList(PERSON_B), DURATION_60_MINUTES));
+      requests.add(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_2_HOUR));
+    }
+
+    List<Collection<TimeRange>> actual = query.queryAll(events, requests);
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(query.query(events, request));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowSpanningSeveralDays() {
+    // Times count minutes since the epoch. A is busy until noon on the first day and from 9:00 on
+    // the second day, so the only hour-long slot is overnight.
+    //
+    // Events  : |--A--|                 |----A----|
+    // Window  :    |----------------------------|
+    // Options :       |---------1-------|
+
+    int day1 = TimeRange.getEpochMinutes(Instant.parse("2020-01-01T00:00:00Z"));
+    int day2 = day1 + TimeRange.MINUTES_PER_DAY;
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(day1, day1 + 12 * 60, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(day2 + 9 * 60, day2 + 18 * 60, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(day1 + 13 * 60, day1 + 14 * 60, false),
+            Arrays.asList(PERSON_B)));
+
+    TimeRange window = TimeRange.fromStartEnd(day1 + 8 * 60, day2 + 17 * 60, false);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR, window);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(day1 + 12 * 60, day2 + 9 * 60, false));
+
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(new AttendeeIndex(events), request));
+    Assert.assertEquals(expected,
+        new FindMeetingQuery(new BitmapFreeTimeEngine()).query(events, request));
+  }
+
+  @Test
+  public void recurringEventOnlyBlocksItsOccurrences() {
+    // A has a daily standup from 9:00 to 9:30 for years. Only the occurrence on the day of the
+    // window gets in the way.
+    //
+    // Events  : |--A--|   |--A--|   |--A--|
+    // Window  :            |-------|
+    // Options :            |-1-|
+
+    int day1 = TimeRange.getEpochMinutes(Instant.parse("2020-01-01T00:00:00Z"));
+    int day400 = day1 + 400 * TimeRange.MINUTES_PER_DAY;
+    Collection<Event> events = Arrays.asList(
+        new Event("Standup", TimeRange.fromStartDuration(day1 + TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A), Recurrence.daily(5 * 365)));
+
+    TimeRange window = TimeRange.fromStartEnd(day400 + TIME_0800AM, day400 + TIME_1000AM, false);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES, window);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(day400 + TIME_0800AM, day400 + TIME_0900AM, false),
+            TimeRange.fromStartEnd(day400 + TIME_0930AM, day400 + TIME_1000AM, false));
+
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(new AttendeeIndex(events), request));
+    Assert.assertEquals(expected, query.query(new EventIntervalTree(events), request));
+  }
+
+  @Test
+  public void queriesAreRecordedInMetrics() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    FindMeetingQuery query = new FindMeetingQuery(new SortedFreeTimeEngine(), metrics);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    query.query(events, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> queries = (Map<String, Object>) metrics.toMap().get("queries");
+    Assert.assertEquals(1L, queries.get("count"));
+    Assert.assertEquals(2L, queries.get("eventsScanned"));
+    Assert.assertEquals(1L, queries.get("eventsMatched"));
+    Assert.assertEquals(2L, queries.get("candidateSlots"));
+  }
+
+  @Test
+  public void roomMustBeFreeForTheWholeMeeting() {
+    // The small room is too small for two people. The large room is booked from 8:30 to 9:00 and
+    // A is busy from 10:00 to 11:00.
+    //
+    // Events  :        |-R-|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |-2-|       |--3--|
+
+    Room small = new Room("Small Room", 1);
+    Room large = new Room("Large Room", 2);
+    Collection<Event> events = Arrays.asList(
+        new Event("Booking", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(large.getName())),
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    List<RoomSlot> actual = query.queryWithRoom(events, request, Arrays.asList(small, large));
+    List<RoomSlot> expected = Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false), large),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), large),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true), large));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void everyFreeRoomIsListed() {
+    // Both rooms are free whenever A is, so each time is listed for both, in the order given.
+    //
+    // Events  :       |--A--|
+    // Day     : |---------------------|
+    // Options : |--1--|     |----2----|
+
+    Room first = new Room("Room 1", 5);
+    Room second = new Room("Room 2", 5);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RoomSlot> actual = query.queryWithRoom(events, request, Arrays.asList(first, second));
+    TimeRange before = TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false);
+    TimeRange after = TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true);
+    List<RoomSlot> expected = Arrays.asList(new RoomSlot(before, first),
+        new RoomSlot(before, second), new RoomSlot(after, first), new RoomSlot(after, second));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
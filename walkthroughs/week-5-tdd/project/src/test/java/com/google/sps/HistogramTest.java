@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class HistogramTest {
+  @Test
+  public void emptyHistogram() {
+    Histogram histogram = new Histogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getPercentile(99));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    Histogram histogram = new Histogram();
+    for (int value = 1; value <= 50; value++) {
+      histogram.record(value);
+    }
+
+    Assert.assertEquals(25, histogram.getPercentile(50));
+    Assert.assertEquals(50, histogram.getPercentile(100));
+    Assert.assertEquals(25.5, histogram.getMean(), 1e-9);
+  }
+
+  @Test
+  public void largeValuesAreWithinThreePercent() {
+    Histogram histogram = new Histogram();
+    for (long value = 1000; value <= 1_000_000; value += 1000) {
+      histogram.record(value);
+    }
+
+    long p90 = histogram.getPercentile(90);
+    Assert.assertTrue(p90 >= 900_000);
+    Assert.assertTrue(p90 <= 900_000 * 1.03);
+    Assert.assertEquals(1_000_000, histogram.getPercentile(100));
+  }
+
+  @Test
+  public void bucketsCoverEveryValue() {
+    long[] values = {0, 63, 64, 127, 128, 1L << 40, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = Histogram.bucketOf(value);
+      Assert.assertTrue(value <= Histogram.highestValueIn(bucket));
+      Assert.assertTrue(bucket == 0 || value > Histogram.highestValueIn(bucket - 1));
+    }
+  }
+}
@@ -44,4 +44,33 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void windowDefaultsToWholeDay() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Assert.assertEquals(TimeRange.WHOLE_DAY, request.getWindow());
+  }
+
+  @Test
+  public void rejectsWindowsAndDurationsThatCantBeScheduled() {
+    TimeRange[] windows = {
+        TimeRange.fromStartDuration(0, -1),
+        TimeRange.fromStartDuration(Integer.MAX_VALUE - 10, 60),
+        TimeRange.fromStartDuration(0, MeetingRequest.MAX_WINDOW_DURATION + 1),
+    };
+    for (TimeRange window : windows) {
+      try {
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR, window);
+        Assert.fail("Expected " + window + " to be rejected");
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+
+    try {
+      new MeetingRequest(Arrays.asList(PERSON_A), -1);
+      Assert.fail("Expected a negative duration to be rejected");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryResultCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private final SchedulerMetrics metrics = new SchedulerMetrics();
+  private int computed;
+
+  private String compute() {
+    computed++;
+    return "answer " + computed;
+  }
+
+  @Test
+  public void sameRequestInAnyOrderIsAHit() {
+    QueryResultCache<String> cache = new QueryResultCache<>(10, metrics);
+
+    String first = cache.get(
+        1, "", new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30), this::compute);
+    String second = cache.get(
+        1, "", new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), 30), this::compute);
+
+    Assert.assertEquals("answer 1", first);
+    Assert.assertEquals("answer 1", second);
+    Assert.assertEquals(1, computed);
+    Assert.assertEquals(1L, cacheCount("hits"));
+    Assert.assertEquals(1L, cacheCount("misses"));
+  }
+
+  @Test
+  public void differentDurationIsAMiss() {
+    QueryResultCache<String> cache = new QueryResultCache<>(10, metrics);
+
+    cache.get(1, "", new MeetingRequest(Arrays.asList(PERSON_A), 30), this::compute);
+    cache.get(1, "", new MeetingRequest(Arrays.asList(PERSON_A), 60), this::compute);
+
+    Assert.assertEquals(2, computed);
+  }
+
+  @Test
+  public void newCalendarVersionDropsOldAnswers() {
+    QueryResultCache<String> cache = new QueryResultCache<>(10, metrics);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+
+    cache.get(1, "", request, this::compute);
+    String answer = cache.get(2, "", request, this::compute);
+
+    Assert.assertEquals("answer 2", answer);
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    QueryResultCache<String> cache = new QueryResultCache<>(2, metrics);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), 30);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+
+    cache.get(1, "", a, this::compute);
+    cache.get(1, "", b, this::compute);
+    cache.get(1, "", a, this::compute);
+    cache.get(1, "", c, this::compute);
+    // b was used least recently, so it was evicted to make room for c.
+    cache.get(1, "", a, this::compute);
+    cache.get(1, "", b, this::compute);
+
+    Assert.assertEquals(4, computed);
+  }
+
+  private long cacheCount(String name) {
+    @SuppressWarnings("unchecked")
+    Map<String, Object> cache = (Map<String, Object>) metrics.toMap().get("cache");
+    return (Long) cache.get(name);
+  }
+}
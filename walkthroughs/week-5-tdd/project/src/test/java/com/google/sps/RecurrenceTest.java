@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  private static final TimeRange FIRST = TimeRange.fromStartDuration(540, 30);
+
+  @Test
+  public void spanCoversEveryOccurrence() {
+    TimeRange span = Recurrence.daily(3).getSpan(FIRST);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(540, 2 * 1440 + 570, false), span);
+  }
+
+  @Test
+  public void occurrencesOnlyWithinWindow() {
+    // Occurrences: [540, 570), [1980, 2010), [3420, 3450), [4860, 4890)
+    Iterator<TimeRange> occurrences =
+        Recurrence.daily(4).occurrences(FIRST, TimeRange.fromStartEnd(569, 3420, false));
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(540, 30), TimeRange.fromStartDuration(1980, 30));
+
+    Assert.assertEquals(expected, toList(occurrences));
+  }
+
+  @Test
+  public void windowAfterLastOccurrence() {
+    Iterator<TimeRange> occurrences =
+        Recurrence.weekly(2).occurrences(FIRST, TimeRange.fromStartDuration(1_000_000, 60));
+
+    Assert.assertFalse(occurrences.hasNext());
+  }
+
+  @Test
+  public void windowBeforeFirstOccurrence() {
+    Iterator<TimeRange> occurrences =
+        Recurrence.weekly(2).occurrences(FIRST, TimeRange.fromStartDuration(0, 540));
+
+    Assert.assertFalse(occurrences.hasNext());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void lastOccurrenceMustFit() {
+    new Event("Event 1", TimeRange.fromStartDuration(Integer.MAX_VALUE - 100, 30),
+        Arrays.asList("Person A"), Recurrence.daily(2));
+  }
+
+  private static List<TimeRange> toList(Iterator<TimeRange> iterator) {
+    List<TimeRange> list = new ArrayList<>();
+    while (iterator.hasNext()) {
+      list.add(iterator.next());
+    }
+    return list;
+  }
+}
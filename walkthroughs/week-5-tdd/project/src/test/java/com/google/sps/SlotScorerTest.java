@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotScorerTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void openDayPrefersWorkingHours() {
+    // Every working-hours slot is free of cost, so the earliest ones win.
+    List<TimeRange> actual = SlotScorer.DEFAULT.topSlots(
+        Arrays.asList(TimeRange.WHOLE_DAY), TimeRange.WHOLE_DAY, 60, 2);
+    List<TimeRange> expected = Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, 60),
+        TimeRange.fromStartDuration(TIME_0900AM + 15, 60));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void keepsBufferAroundEvents() {
+    // Events  :       |--A--|
+    // Day     : |-----------------------------|
+    // Best    :                 |-|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+
+    List<TimeRange> actual = new FindMeetingQuery().queryRanked(
+        events, request, new SlotScorer(TIME_0900AM, TIME_1100AM, 15, 30, 15), 1);
+    List<TimeRange> expected = Arrays.asList(TimeRange.fromStartDuration(TIME_1000AM + 30, 30));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void neverReturnsMoreThanLimit() {
+    List<TimeRange> actual = SlotScorer.DEFAULT.topSlots(
+        Arrays.asList(TimeRange.WHOLE_DAY), TimeRange.WHOLE_DAY, 30, 3);
+
+    Assert.assertEquals(3, actual.size());
+  }
+
+  @Test
+  public void hugeLimitOnlyKeepsCandidates() {
+    // A whole day has 95 half-hour candidates at a 15 minute step; no more are allocated.
+    List<TimeRange> actual = SlotScorer.DEFAULT.topSlots(
+        Arrays.asList(TimeRange.WHOLE_DAY), TimeRange.WHOLE_DAY, 30, Integer.MAX_VALUE);
+
+    Assert.assertEquals(95, actual.size());
+  }
+
+  @Test
+  public void noRoomForMeeting() {
+    List<TimeRange> actual = SlotScorer.DEFAULT.topSlots(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, 20)), TimeRange.WHOLE_DAY, 30, 3);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+}
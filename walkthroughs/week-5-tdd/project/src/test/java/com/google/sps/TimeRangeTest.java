@@ -14,6 +14,9 @@
 
 package com.google.sps;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -184,4 +187,31 @@ public final class TimeRangeTest {
     Assert.assertTrue(emptyMiddle.overlaps(range));
     Assert.assertTrue(emptyEnd.overlaps(range));
   }
+
+  @Test
+  public void fromInstantsCountsMinutesSinceEpoch() {
+    // 2020-01-01T09:00 in New York is 14:00 UTC.
+    Instant start = ZonedDateTime.of(2020, 1, 1, 9, 0, 0, 0, ZoneId.of("America/New_York"))
+        .toInstant();
+    Instant end = start.plusSeconds(30 * 60 + 59);
+
+    TimeRange range = TimeRange.fromInstants(start, end);
+
+    Assert.assertEquals(Instant.parse("2020-01-01T14:00:00Z").getEpochSecond() / 60, range.start());
+    Assert.assertEquals(30, range.duration());
+  }
+
+  @Test
+  public void packedRoundTrip() {
+    TimeRange range = TimeRange.fromStartDuration(-1440, 90);
+
+    long packed = range.toPacked();
+
+    Assert.assertEquals(-1440, TimeRange.packedStart(packed));
+    Assert.assertEquals(90, TimeRange.packedDuration(packed));
+    Assert.assertEquals(-1350, TimeRange.packedEnd(packed));
+    Assert.assertEquals(range, TimeRange.fromPacked(packed));
+    Assert.assertTrue(packed < TimeRange.pack(-1440, 91));
+    Assert.assertTrue(packed < TimeRange.pack(0, 0));
+  }
 }
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class JsonAdaptersTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  @Test
+  public void timeRangesMatchReflectiveJson() {
+    List<TimeRange> times =
+        Arrays.asList(TimeRange.fromStartDuration(0, 30), TimeRange.fromStartDuration(600, 90));
+
+    Assert.assertEquals(new Gson().toJson(times), JsonAdapters.GSON.toJson(times));
+  }
+
+  @Test
+  public void readsRequest() {
+    String json = "{\"attendees\":[\"Person A\"],\"optional_attendees\":[\"Person B\"],"
+        + "\"duration\":45,\"window\":{\"start\":60,\"duration\":120},\"ignored\":[1]}";
+
+    MeetingRequest request = JsonAdapters.GSON.fromJson(json, MeetingRequest.class);
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A)),
+        new HashSet<>(request.getAttendees()));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_B)),
+        new HashSet<>(request.getOptionalAttendees()));
+    Assert.assertEquals(45, request.getDuration());
+    Assert.assertEquals(TimeRange.fromStartDuration(60, 120), request.getWindow());
+  }
+
+  @Test
+  public void malformedNumbersAreSyntaxErrors() {
+    String[] requests = {
+        "{\"duration\":1.5}",
+        "{\"duration\":99999999999999999999}",
+        "{\"duration\":30,\"window\":{\"start\":0.5,\"duration\":60}}",
+        "{\"duration\":30,\"window\":{\"start\":0,\"duration\":3000000000}}",
+    };
+    for (String json : requests) {
+      try {
+        JsonAdapters.GSON.fromJson(json, MeetingRequest.class);
+        Assert.fail("Expected a JsonSyntaxException for " + json);
+      } catch (JsonSyntaxException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void missingFieldsUseDefaults() {
+    MeetingRequest request =
+        JsonAdapters.GSON.fromJson("{\"duration\":30,\"window\":null}", MeetingRequest.class);
+
+    Assert.assertTrue(request.getAttendees().isEmpty());
+    Assert.assertTrue(request.getOptionalAttendees().isEmpty());
+    Assert.assertEquals(TimeRange.WHOLE_DAY, request.getWindow());
+  }
+
+  @Test
+  public void requestRoundTrips() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_B);
+
+    MeetingRequest actual = JsonAdapters.GSON.fromJson(
+        JsonAdapters.GSON.toJson(request), MeetingRequest.class);
+
+    Assert.assertEquals(JsonAdapters.GSON.toJson(request), JsonAdapters.GSON.toJson(actual));
+  }
+}
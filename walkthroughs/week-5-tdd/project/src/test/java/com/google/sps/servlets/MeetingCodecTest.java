@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingRequest;
+import com.google.sps.RangeBuffer;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingCodecTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Persön B";
+
+  @Test
+  public void requestRoundTrips() throws IOException {
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList(PERSON_A), 45, TimeRange.fromStartDuration(-120, 3000));
+    request.addOptionalAttendee(PERSON_B);
+
+    MeetingRequest actual = MeetingCodec.decodeRequest(
+        new ByteArrayInputStream(MeetingCodec.encodeRequest(request)));
+
+    Assert.assertEquals(new HashSet<>(request.getAttendees()),
+        new HashSet<>(actual.getAttendees()));
+    Assert.assertEquals(new HashSet<>(request.getOptionalAttendees()),
+        new HashSet<>(actual.getOptionalAttendees()));
+    Assert.assertEquals(45, actual.getDuration());
+    Assert.assertEquals(request.getWindow(), actual.getWindow());
+  }
+
+  @Test
+  public void timesRoundTrip() throws IOException {
+    List<TimeRange> times = Arrays.asList(TimeRange.fromStartDuration(0, 30),
+        TimeRange.fromStartDuration(Integer.MAX_VALUE - 10, 10));
+    RangeBuffer buffer = new RangeBuffer();
+    for (TimeRange time : times) {
+      buffer.add(time.start(), time.duration());
+    }
+
+    byte[] encoded = MeetingCodec.encodeTimes(times);
+
+    Assert.assertArrayEquals(encoded, MeetingCodec.encodeTimes(buffer));
+    Assert.assertEquals(times, MeetingCodec.decodeTimes(new ByteArrayInputStream(encoded)));
+  }
+
+  @Test
+  public void smallAnswersAreSmall() {
+    // One byte each for the count, the start and the duration, which are all below 64.
+    byte[] encoded = MeetingCodec.encodeTimes(Arrays.asList(TimeRange.fromStartDuration(60, 30)));
+
+    Assert.assertEquals(3, encoded.length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedRequestIsRejected() throws IOException {
+    byte[] encoded = MeetingCodec.encodeRequest(new MeetingRequest(Arrays.asList(PERSON_A), 30));
+
+    MeetingCodec.decodeRequest(
+        new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void oversizedNameIsRejected() throws IOException {
+    // One attendee whose name claims to be a gigabyte long.
+    MeetingCodec.decodeRequest(
+        new ByteArrayInputStream(new byte[] {1, (byte) 0x80, (byte) 0x80, (byte) 0x80, 4}));
+  }
+
+  @Test
+  public void mediaTypeIsFoundInHeaders() {
+    Assert.assertTrue(MeetingCodec.isNamedIn("application/x-sps-meeting, application/json"));
+    Assert.assertFalse(MeetingCodec.isNamedIn("application/json"));
+    Assert.assertFalse(MeetingCodec.isNamedIn(null));
+  }
+}